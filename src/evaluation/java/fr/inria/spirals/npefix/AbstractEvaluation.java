@@ -1,8 +1,8 @@
 package fr.inria.spirals.npefix;
 
 import fr.inria.spirals.npefix.config.Config;
-import fr.inria.spirals.npefix.main.DecisionServer;
 import fr.inria.spirals.npefix.main.all.Launcher;
+import fr.inria.spirals.npefix.resi.CallChecker;
 import fr.inria.spirals.npefix.resi.context.Decision;
 import fr.inria.spirals.npefix.resi.context.Lapse;
 import fr.inria.spirals.npefix.resi.context.NPEOutput;
@@ -61,8 +61,7 @@ public class AbstractEvaluation {
             launcher = initNPEFix(name, Config.CONFIG.getEvaluationWorkingDirectory() + "/" + name + "/instrumented", null, deps);
             //launcher.getCompiler().compile();
         }
-        DecisionServer decisionServer = new DecisionServer(selector);
-        decisionServer.startServer();
+        CallChecker.setSelector(selector);
         List<String> tests = launcher.getTests();
         if(test.isEmpty()) {
             throw new RuntimeException("No test found");
@@ -131,8 +130,6 @@ public class AbstractEvaluation {
             printResults(output, printException);
         } catch (RemoteException e) {
             throw new RuntimeException(e);
-        } finally {
-            decisionServer.stopServer();
         }
         return output;
     }
@@ -0,0 +1,109 @@
+package fr.inria.spirals.npefix.resi;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the cost of the CallChecker hooks when the value is not null.
+ *
+ * The allocation is measured with the allocated bytes counter of the
+ * current thread, the non-null path must allocate nothing.
+ */
+@Ignore
+public class CallCheckerBenchmark {
+
+	private static final int WARMUP = 2000000;
+	private static final int NBITERATION = 20000000;
+
+	private static final String CLASS_NAME = "foo.Foo";
+
+	private static int sink;
+
+	private interface Hook {
+		void call(Object value, int index);
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private void runBench(String name, Hook hook) {
+		Object value = "value";
+		for (int i = 0; i < WARMUP; i++) {
+			hook.call(value, i);
+		}
+		long startBytes = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < NBITERATION; i++) {
+			hook.call(value, i);
+		}
+		long end = System.nanoTime();
+		long endBytes = allocatedBytes();
+
+		double bytesPerOp = (endBytes - startBytes) / (double) NBITERATION;
+		System.out.println(String.format("%s: %.2f ns/op %.4f bytes/op",
+				name,
+				(end - start) / (double) NBITERATION,
+				bytesPerOp));
+		assertEquals(name + " allocates", 0, bytesPerOp, 0.01);
+	}
+
+	@Test
+	public void isCalled() {
+		runBench("isCalled", new Hook() {
+			@Override
+			public void call(Object value, int index) {
+				sink += CallChecker.isCalled(value, String.class, 0, CLASS_NAME, 10, 100, 110).hashCode();
+			}
+		});
+	}
+
+	@Test
+	public void beforeCalled() {
+		runBench("beforeCalled", new Hook() {
+			@Override
+			public void call(Object value, int index) {
+				sink += CallChecker.beforeCalled(value, String.class, 1, CLASS_NAME, 11, 120, 130).hashCode();
+			}
+		});
+	}
+
+	@Test
+	public void beforeDeref() {
+		runBench("beforeDeref", new Hook() {
+			@Override
+			public void call(Object value, int index) {
+				if (CallChecker.beforeDeref(value, String.class, 2, CLASS_NAME, 12, 140, 150)) {
+					sink++;
+				}
+			}
+		});
+	}
+
+	@Test
+	public void arrayAccess() {
+		final Object[] array = new Object[] {"a", "b", "c", "d"};
+		runBench("arrayAccess", new Hook() {
+			@Override
+			public void call(Object value, int index) {
+				sink += CallChecker.<Object>arrayAccess(array, index & 3, Object.class, 3, CLASS_NAME, 13, 160, 170).hashCode();
+			}
+		});
+	}
+
+	@Test
+	public void primitiveArrayAccess() {
+		final int[] array = new int[] {1, 2, 3, 4};
+		runBench("primitiveArrayAccess", new Hook() {
+			@Override
+			public void call(Object value, int index) {
+				sink += CallChecker.arrayAccess(array, index & 3, int.class, 4, CLASS_NAME, 14, 180, 190);
+			}
+		});
+	}
+}
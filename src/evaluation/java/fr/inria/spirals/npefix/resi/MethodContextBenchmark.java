@@ -0,0 +1,76 @@
+package fr.inria.spirals.npefix.resi;
+
+import fr.inria.spirals.npefix.resi.context.MethodContext;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the cost of a method entry on deep recursion when the
+ * MethodContext walks the stack and when the instrumentation passes
+ * the method name and the location as constants.
+ */
+@Ignore
+public class MethodContextBenchmark {
+
+	private static final int NBITERATION = 200;
+	private static final int[] DEPTHS = new int[] {10, 100, 1000};
+
+	private static final String CLASS_NAME = MethodContextBenchmark.class.getName();
+
+	private int stackWalk(int depth) {
+		MethodContext context = new MethodContext(Integer.class, 10, 100, 200);
+		try {
+			if (depth == 0) {
+				return 0;
+			}
+			return stackWalk(depth - 1) + 1;
+		} finally {
+			context.methodEnd();
+		}
+	}
+
+	private int constants(int depth) {
+		MethodContext context = new MethodContext(Integer.class, "constants", 0, CLASS_NAME, 10, 100, 200);
+		try {
+			if (depth == 0) {
+				return 0;
+			}
+			return constants(depth - 1) + 1;
+		} finally {
+			context.methodEnd();
+		}
+	}
+
+	private double runBench(int depth, boolean withStackWalk) {
+		// warmup
+		for (int i = 0; i < NBITERATION; i++) {
+			if (withStackWalk) {
+				stackWalk(depth);
+			} else {
+				constants(depth);
+			}
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < NBITERATION; i++) {
+			if (withStackWalk) {
+				stackWalk(depth);
+			} else {
+				constants(depth);
+			}
+		}
+		long end = System.nanoTime();
+		return (end - start) / (double) (NBITERATION * (depth + 1));
+	}
+
+	@Test
+	public void deepRecursion() {
+		CallChecker.clear();
+		for (int i = 0; i < DEPTHS.length; i++) {
+			int depth = DEPTHS[i];
+			double before = runBench(depth, true);
+			double after = runBench(depth, false);
+			System.out.println(String.format("depth %d: stack walk %.1f ns/call, constants %.1f ns/call (x%.1f)",
+					depth, before, after, before / after));
+		}
+	}
+}
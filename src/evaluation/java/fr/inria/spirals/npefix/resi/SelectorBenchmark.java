@@ -0,0 +1,81 @@
+package fr.inria.spirals.npefix.resi;
+
+import fr.inria.spirals.npefix.config.Config;
+import fr.inria.spirals.npefix.main.DecisionServer;
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.context.instance.PrimitiveInstance;
+import fr.inria.spirals.npefix.resi.selector.DomSelector;
+import fr.inria.spirals.npefix.resi.selector.Selector;
+import fr.inria.spirals.npefix.resi.strategies.ReturnType;
+import fr.inria.spirals.npefix.resi.strategies.Strat4;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the number of decisions per second when CallChecker calls
+ * the selector directly (in-process mode) and through RMI (forked mode).
+ */
+@Ignore
+public class SelectorBenchmark {
+
+	private static final int WARMUP = 2000;
+	private static final int NBITERATION = 20000;
+
+	private List<Decision<Object>> createSearchSpace() {
+		Location location = new Location("foo.Foo", 10, 100, 110);
+		List<Decision<Object>> decisions = new ArrayList<>();
+		decisions.add(new Decision<Object>(new Strat4(ReturnType.NULL), location, new PrimitiveInstance<Object>(null)));
+		decisions.add(new Decision<Object>(new Strat4(ReturnType.VOID), location, new PrimitiveInstance<Object>(null)));
+		return decisions;
+	}
+
+	/**
+	 * Executes the selector calls of CallChecker for one decision
+	 */
+	private void decide(Selector selector, List<Decision<Object>> searchSpace) throws Exception {
+		selector.getStrategies();
+		Lapse lapse = selector.getCurrentLapse();
+		Decision<Object> decision = selector.select(searchSpace);
+		lapse.addDecision(decision);
+		selector.updateCurrentLapse(lapse);
+	}
+
+	private double runBench(Selector selector) throws Exception {
+		List<Decision<Object>> searchSpace = createSearchSpace();
+		for (int i = 0; i < WARMUP; i++) {
+			selector.startLaps(new Lapse(selector, new String[0]));
+			decide(selector, searchSpace);
+		}
+		long time = 0;
+		for (int i = 0; i < NBITERATION; i++) {
+			selector.startLaps(new Lapse(selector, new String[0]));
+			long start = System.nanoTime();
+			decide(selector, searchSpace);
+			time += System.nanoTime() - start;
+		}
+		return NBITERATION / (time / 1e9);
+	}
+
+	@Test
+	public void directVsRMI() throws Exception {
+		Selector selector = new DomSelector();
+		double direct = runBench(selector);
+
+		DecisionServer decisionServer = new DecisionServer(selector);
+		decisionServer.startServer();
+		Selector stub = (Selector) LocateRegistry
+				.getRegistry(Config.CONFIG.getServerHost(), Config.CONFIG.getServerPort())
+				.lookup(Config.CONFIG.getServerName());
+		double rmi = runBench(stub);
+		decisionServer.stopServer();
+
+		System.out.println(String.format("direct: %.0f decisions/s, RMI: %.0f decisions/s (x%.1f)",
+				direct, rmi, direct / rmi));
+	}
+}
@@ -0,0 +1,117 @@
+package fr.inria.spirals.npefix.resi;
+
+import fr.inria.spirals.npefix.config.Config;
+import fr.inria.spirals.npefix.main.DecisionServer;
+import fr.inria.spirals.npefix.main.SocketDecisionServer;
+import fr.inria.spirals.npefix.main.SocketSelector;
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.context.instance.PrimitiveInstance;
+import fr.inria.spirals.npefix.resi.oracle.ExceptionOracle;
+import fr.inria.spirals.npefix.resi.selector.DomSelector;
+import fr.inria.spirals.npefix.resi.selector.Selector;
+import fr.inria.spirals.npefix.resi.strategies.ReturnType;
+import fr.inria.spirals.npefix.resi.strategies.Strat4;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the latency of a decision of a forked JVM with the RMI
+ * transport and with the socket transport, both servers expose the
+ * same selector.
+ */
+@Ignore
+public class TransportBenchmark {
+
+	private static final int WARMUP = 2000;
+	private static final int NBITERATION = 20000;
+
+	private List<Decision<Object>> createSearchSpace() {
+		Location location = new Location("foo.Foo", 10, 100, 110);
+		List<Decision<Object>> decisions = new ArrayList<>();
+		decisions.add(new Decision<Object>(new Strat4(ReturnType.NULL), location, new PrimitiveInstance<Object>(null)));
+		decisions.add(new Decision<Object>(new Strat4(ReturnType.VOID), location, new PrimitiveInstance<Object>(null)));
+		return decisions;
+	}
+
+	/**
+	 * Executes the selector calls of CallChecker for one decision
+	 */
+	private void decide(Selector selector, List<Decision<Object>> searchSpace) throws Exception {
+		selector.getStrategies();
+		Lapse lapse = selector.getCurrentLapse();
+		Decision<Object> decision = selector.select(searchSpace);
+		lapse.addDecision(decision);
+		lapse.addApplication(decision);
+		selector.updateCurrentLapse(lapse);
+	}
+
+	private long[] runBench(Selector selector) throws Exception {
+		List<Decision<Object>> searchSpace = createSearchSpace();
+		for (int i = 0; i < WARMUP; i++) {
+			runTest(selector, searchSpace);
+		}
+		long[] latencies = new long[NBITERATION];
+		for (int i = 0; i < NBITERATION; i++) {
+			latencies[i] = runTest(selector, searchSpace);
+		}
+		Arrays.sort(latencies);
+		return latencies;
+	}
+
+	private long runTest(Selector selector, List<Decision<Object>> searchSpace) throws Exception {
+		Lapse lapse = new Lapse(selector, new String[0]);
+		lapse.setTestClassName("foo.FooTest");
+		lapse.setTestName("test");
+		selector.startLaps(lapse);
+		long start = System.nanoTime();
+		decide(selector, searchSpace);
+		long time = System.nanoTime() - start;
+		lapse.setOracle(new ExceptionOracle(new Exception("benchmark")));
+		selector.restartTest(lapse);
+		return time;
+	}
+
+	private String format(String name, long[] latencies) {
+		long total = 0;
+		for (int i = 0; i < latencies.length; i++) {
+			total += latencies[i];
+		}
+		return String.format("%s: mean %.1f us, p50 %.1f us, p99 %.1f us",
+				name,
+				total / (double) latencies.length / 1000,
+				latencies[latencies.length / 2] / 1000.0,
+				latencies[latencies.length * 99 / 100] / 1000.0);
+	}
+
+	@Test
+	public void rmiVsSocket() throws Exception {
+		Selector selector = new DomSelector();
+
+		DecisionServer decisionServer = new DecisionServer(selector);
+		decisionServer.startServer();
+		Selector stub = (Selector) LocateRegistry
+				.getRegistry(Config.CONFIG.getServerHost(), Config.CONFIG.getServerPort())
+				.lookup(Config.CONFIG.getServerName());
+
+		SocketDecisionServer socketDecisionServer = new SocketDecisionServer(selector);
+		int port = socketDecisionServer.startServer();
+		SocketSelector socketSelector = new SocketSelector(Config.CONFIG.getServerHost(), port);
+
+		long[] rmi = runBench(stub);
+		long[] socket = runBench(socketSelector);
+
+		socketSelector.close();
+		socketDecisionServer.stopServer();
+		decisionServer.stopServer();
+
+		System.out.println(format("RMI", rmi));
+		System.out.println(format("socket", socket));
+	}
+}
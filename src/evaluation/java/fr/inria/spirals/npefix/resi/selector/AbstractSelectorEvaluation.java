@@ -2,10 +2,13 @@ package fr.inria.spirals.npefix.resi.selector;
 
 import fr.inria.spirals.npefix.config.Config;
 import fr.inria.spirals.npefix.resi.AbstractNPEDataset;
+import fr.inria.spirals.npefix.resi.context.Lapse;
 import fr.inria.spirals.npefix.resi.context.NPEOutput;
 import org.junit.Assert;
 
 import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Abstract selector evaluation
@@ -14,6 +17,9 @@ public abstract class AbstractSelectorEvaluation extends AbstractNPEDataset {
 
 	private static final String rootNPEDataset = Config.CONFIG.getDatasetRoot();
 
+	// selector -> project -> time to the first valid patch in ms, -1 without valid patch
+	static final Map<String, Map<String, Long>> timesToFirstPatch = new LinkedHashMap<>();
+
 	private Selector selector;
 
 	protected int nbIteration = Config.CONFIG.getNbIteration();
@@ -35,10 +41,40 @@ public abstract class AbstractSelectorEvaluation extends AbstractNPEDataset {
 		NPEOutput results = multipleRunsProject(
 				name,
 				source, test, deps, true, nbIteration, selector);
+		long time = getTimeToFirstPatch(results);
+		System.out.println("The selector " + selector + " finds a first valid patch for " + name + " in " + time + " ms");
+		if (!timesToFirstPatch.containsKey(selector.toString())) {
+			timesToFirstPatch.put(selector.toString(), new LinkedHashMap<String, Long>());
+		}
+		timesToFirstPatch.get(selector.toString()).put(name, time);
 		eval(results);
 		return results;
 	}
 
+	/**
+	 * Returns the time between the start of the first lapse and the end
+	 * of the first valid lapse with decisions, -1 without valid lapse.
+	 * The lapses of the output are not sorted by date.
+	 */
+	public static long getTimeToFirstPatch(NPEOutput results) {
+		long firstStart = Long.MAX_VALUE;
+		long firstPatchEnd = Long.MAX_VALUE;
+		for (int i = 0; i < results.size(); i++) {
+			Lapse lapse = results.get(i);
+			firstStart = Math.min(firstStart, lapse.getStartDate().getTime());
+			if (!lapse.getDecisions().isEmpty()
+					&& lapse.getOracle() != null
+					&& lapse.getOracle().isValid()
+					&& lapse.getEndDate() != null) {
+				firstPatchEnd = Math.min(firstPatchEnd, lapse.getEndDate().getTime());
+			}
+		}
+		if (firstPatchEnd == Long.MAX_VALUE) {
+			return -1;
+		}
+		return firstPatchEnd - firstStart;
+	}
+
 	public void setSelector(
 			Selector selector) {
 		this.selector = selector;
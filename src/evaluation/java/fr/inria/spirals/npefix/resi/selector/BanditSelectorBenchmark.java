@@ -0,0 +1,43 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the time to the first valid patch of the epsilon-greedy,
+ * UCB1 and Thompson sampling selectors on the NPE dataset.
+ */
+@Ignore
+public class BanditSelectorBenchmark {
+
+	@Test
+	public void timeToFirstPatch() {
+		AbstractSelectorEvaluation.timesToFirstPatch.clear();
+		JUnitCore.runClasses(GreedySelectorEvaluation.class,
+				UCB1SelectorEvaluation.class,
+				ThompsonSelectorEvaluation.class);
+
+		Map<String, Map<String, Long>> times = AbstractSelectorEvaluation.timesToFirstPatch;
+		Set<String> projects = new LinkedHashSet<>();
+		for (Map<String, Long> projectTimes : times.values()) {
+			projects.addAll(projectTimes.keySet());
+		}
+		StringBuilder output = new StringBuilder(String.format("%-15s", "project"));
+		for (String selector : times.keySet()) {
+			output.append(String.format("%20s", selector));
+		}
+		for (String project : projects) {
+			output.append(String.format("%n%-15s", project));
+			for (Map<String, Long> projectTimes : times.values()) {
+				Long time = projectTimes.get(project);
+				output.append(String.format("%20s", time == null || time < 0 ? "-" : time + " ms"));
+			}
+		}
+		System.out.println(output);
+	}
+}
@@ -0,0 +1,15 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+import fr.inria.spirals.npefix.resi.CallChecker;
+import fr.inria.spirals.npefix.resi.RandomGenerator;
+import org.junit.Before;
+
+public class UCB1SelectorEvaluation extends AbstractSelectorEvaluation {
+
+    @Before
+    public void setup() {
+        RandomGenerator.reset();
+        CallChecker.clear();
+        setSelector(new UCB1Selector());
+    }
+}
@@ -12,6 +12,13 @@ public class Config  {
 	private static final String SERVER_PORT = "server.port";
 	private static final String SERVER_HOST = "server.host";
 	private static final String SERVER_NAME = "server.name";
+	private static final String SERVER_TRANSPORT = "server.transport";
+	private static final String WORKER_PARALLELISM = "worker.parallelism";
+	private static final String WORKER_LAPSES = "worker.lapses";
+	private static final String INSTRUMENTATION_IN_MEMORY = "instrumentation.inMemory";
+	private static final String INSTRUMENTATION_WRITE_SOURCES = "instrumentation.writeSources";
+	private static final String INSTRUMENTATION_RESET_STATIC_STATE = "instrumentation.resetStaticState";
+	private static final String VALIDATION_REGRESSION_SAMPLE = "validation.regressionSample";
 	private static final String RANDOM_SEED = "random.seed";
 	private static final String SELECTOR_GREEDY_EPSILON = "selector.greedy.epsilon";
 	private static final String EVALUATION_DATASET_ROOT = "evaluation.datasetRoot";
@@ -19,6 +26,8 @@ public class Config  {
 	private static final String EVALUATION_OUTPUT_DIRECTORY = "evaluation.outputDirectory";
 	private static final String EVALUATION_M2_ROOT = "evaluation.m2Root";
 	private static final String ITERATION_TIMEOUT = "iteration.timeout";
+	private static final String BUDGET_TIME = "budget.time";
+	private static final String BUDGET_PATCHES = "budget.patches";
 
 	public static Config CONFIG = new Config();
 	private String outputDirectory;
@@ -28,8 +37,17 @@ public class Config  {
 	private int randomSeed;
 	private int serverPort;
 	private String serverHost;
+	private String serverTransport;
+	private int workerParallelism;
+	private int workerLapses;
+	private boolean inMemoryInstrumentation;
+	private boolean writingInstrumentedSources;
+	private boolean resettingStaticState;
+	private int regressionSample;
 	private int nbIteration;
 	private int timeoutIteration;
+	private int timeBudget;
+	private int patchBudget;
 	private Properties properties = new Properties();
 	private String workingDirectory;
 	private String m2Repository;
@@ -56,13 +74,22 @@ public class Config  {
 			this.outputDirectory = properties.getProperty(EVALUATION_OUTPUT_DIRECTORY, "output/");
 			setM2Repository(properties.getProperty(EVALUATION_M2_ROOT));
 			this.serverName = properties.getProperty(SERVER_NAME, "Selector");
+			this.serverTransport = properties.getProperty(SERVER_TRANSPORT, "socket");
+			this.workerParallelism = Integer.parseInt(properties.getProperty(WORKER_PARALLELISM, "1"));
+			this.workerLapses = Integer.parseInt(properties.getProperty(WORKER_LAPSES, "1"));
+			this.inMemoryInstrumentation = Boolean.parseBoolean(properties.getProperty(INSTRUMENTATION_IN_MEMORY, "false"));
+			this.writingInstrumentedSources = Boolean.parseBoolean(properties.getProperty(INSTRUMENTATION_WRITE_SOURCES, "false"));
+			this.resettingStaticState = Boolean.parseBoolean(properties.getProperty(INSTRUMENTATION_RESET_STATIC_STATE, "false"));
+			this.regressionSample = Integer.parseInt(properties.getProperty(VALIDATION_REGRESSION_SAMPLE, "-1"));
+			this.timeBudget = Integer.parseInt(properties.getProperty(BUDGET_TIME, "0"));
+			this.patchBudget = Integer.parseInt(properties.getProperty(BUDGET_PATCHES, "0"));
 
 			File currentDir = new File(System.getProperty("user.dir") + "/config.ini");
 			if (currentDir.exists()) {
 				Properties userProperties = new Properties();
 				userProperties.load(new FileReader(currentDir));
 
-				this.timeoutIteration = Integer.parseInt(properties.getProperty(ITERATION_TIMEOUT, timeoutIteration + ""));
+				this.timeoutIteration = Integer.parseInt(userProperties.getProperty(ITERATION_TIMEOUT, timeoutIteration + ""));
 				this.nbIteration = Integer.parseInt(userProperties.getProperty(ITERATION_COUNT, nbIteration + ""));
 				this.serverPort = Integer.parseInt(userProperties.getProperty(SERVER_PORT, serverPort + ""));
 				this.serverHost = userProperties.getProperty(SERVER_HOST, serverHost);
@@ -73,6 +100,15 @@ public class Config  {
 				this.outputDirectory = userProperties.getProperty(EVALUATION_OUTPUT_DIRECTORY, outputDirectory);
 				setM2Repository(userProperties.getProperty(EVALUATION_M2_ROOT, m2Repository));
 				this.serverName = userProperties.getProperty(SERVER_NAME, serverName);
+				this.serverTransport = userProperties.getProperty(SERVER_TRANSPORT, serverTransport);
+				this.workerParallelism = Integer.parseInt(userProperties.getProperty(WORKER_PARALLELISM, workerParallelism + ""));
+				this.workerLapses = Integer.parseInt(userProperties.getProperty(WORKER_LAPSES, workerLapses + ""));
+				this.inMemoryInstrumentation = Boolean.parseBoolean(userProperties.getProperty(INSTRUMENTATION_IN_MEMORY, inMemoryInstrumentation + ""));
+				this.writingInstrumentedSources = Boolean.parseBoolean(userProperties.getProperty(INSTRUMENTATION_WRITE_SOURCES, writingInstrumentedSources + ""));
+				this.resettingStaticState = Boolean.parseBoolean(userProperties.getProperty(INSTRUMENTATION_RESET_STATIC_STATE, resettingStaticState + ""));
+				this.regressionSample = Integer.parseInt(userProperties.getProperty(VALIDATION_REGRESSION_SAMPLE, regressionSample + ""));
+				this.timeBudget = Integer.parseInt(userProperties.getProperty(BUDGET_TIME, timeBudget + ""));
+				this.patchBudget = Integer.parseInt(userProperties.getProperty(BUDGET_PATCHES, patchBudget + ""));
 			}
 		} catch (Exception e) {
 			throw new RuntimeException("Unable to open the configuration.", e);
@@ -88,6 +124,28 @@ public class Config  {
 		this.timeoutIteration = timeoutIteration;
 	}
 
+	/**
+	 * Returns the duration of an exploration in seconds, 0 for no limit
+	 */
+	public int getTimeBudget() {
+		return timeBudget;
+	}
+
+	public void setTimeBudget(int timeBudget) {
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * Returns the number of distinct valid patches that ends an exploration, 0 for no limit
+	 */
+	public int getPatchBudget() {
+		return patchBudget;
+	}
+
+	public void setPatchBudget(int patchBudget) {
+		this.patchBudget = patchBudget;
+	}
+
 	public int getNbIteration() {
 		return nbIteration;
 	}
@@ -182,6 +240,93 @@ public class Config  {
 		this.serverName = serverName;
 	}
 
+	/**
+	 * Transport used by the forked JVMs to access the selector: socket or rmi
+	 */
+	public String getServerTransport() {
+		return serverTransport;
+	}
+
+	public void setServerTransport(String serverTransport) {
+		this.serverTransport = serverTransport;
+	}
+
+	/**
+	 * Returns the number of forked JVMs that run lapses at the same time,
+	 * 0 uses one JVM per available processor
+	 */
+	public int getWorkerParallelism() {
+		if (workerParallelism <= 0) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+		return workerParallelism;
+	}
+
+	public void setWorkerParallelism(int workerParallelism) {
+		this.workerParallelism = workerParallelism;
+	}
+
+	/**
+	 * Returns the number of lapses run by a forked JVM before it is
+	 * replaced, 1 starts a new JVM for each lapse
+	 */
+	public int getWorkerLapses() {
+		return workerLapses;
+	}
+
+	public void setWorkerLapses(int workerLapses) {
+		this.workerLapses = workerLapses;
+	}
+
+	/**
+	 * Returns true if the instrumented classes are compiled and loaded
+	 * in memory instead of being written in the output directories
+	 */
+	public boolean isInMemoryInstrumentation() {
+		return inMemoryInstrumentation;
+	}
+
+	public void setInMemoryInstrumentation(boolean inMemoryInstrumentation) {
+		this.inMemoryInstrumentation = inMemoryInstrumentation;
+	}
+
+	/**
+	 * Returns true if the instrumented sources compiled in memory are
+	 * also written in the source output directory, for debugging
+	 */
+	public boolean isWritingInstrumentedSources() {
+		return writingInstrumentedSources;
+	}
+
+	public void setWritingInstrumentedSources(boolean writingInstrumentedSources) {
+		this.writingInstrumentedSources = writingInstrumentedSources;
+	}
+
+	/**
+	 * Returns true if the instrumentation adds the reset of the static
+	 * fields, the lapses then reuse the class loader of the project
+	 * when all the loaded classes can be reset
+	 */
+	public boolean isResettingStaticState() {
+		return resettingStaticState;
+	}
+
+	public void setResettingStaticState(boolean resettingStaticState) {
+		this.resettingStaticState = resettingStaticState;
+	}
+
+	/**
+	 * Returns the number of tests that run in addition to the tests that
+	 * dereference null, -1 runs all the tests
+	 */
+	public int getRegressionSample() {
+		return regressionSample;
+	}
+
+	public void setRegressionSample(int regressionSample) {
+		this.regressionSample = regressionSample;
+	}
+
 	public boolean isMultiPoints() {
 		return multiPoints;
 	}
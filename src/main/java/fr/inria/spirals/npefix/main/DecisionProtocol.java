@@ -0,0 +1,171 @@
+package fr.inria.spirals.npefix.main;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.ProtocolException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Binary protocol between the forked JVMs and the SocketDecisionServer.
+ *
+ * Locations, decisions and strategies are defined once per connection
+ * and then referenced by their numeric id. The one-way operations are
+ * buffered by the client and sent with the next request.
+ *
+ * Only the strategies, instances and oracles of npefix and the JDK classes
+ * they contain are deserialized, any other class is rejected.
+ */
+final class DecisionProtocol {
+
+	/** request: -, reply: serialized list of strategies */
+	static final byte GET_STRATEGIES = 1;
+	/** request: test class, test name, input sources, reply: boolean */
+	static final byte START_LAPSE = 2;
+	/** one-way: id, class name, line, source start, source end */
+	static final byte DEFINE_LOCATION = 3;
+	/** one-way: id, strategy index (or -1 and the serialized strategy), location id, serialized instance, value type */
+	static final byte DEFINE_DECISION = 4;
+	/** request: number of decisions, decision ids, reply: selected index, decision type, epsilon */
+	static final byte SELECT = 5;
+	/** one-way: decision id */
+	static final byte ADD_DECISION = 6;
+	/** one-way: decision id, number of applications */
+	static final byte APPLY = 7;
+	/** request: serialized oracle, reply: boolean */
+	static final byte RESTART_TEST = 8;
+	/** one-way: end of the connection */
+	static final byte CLOSE = 9;
+
+	// in bytes, the serialized objects are strategies, instances and oracles
+	static final int MAX_OBJECT_SIZE = 16 * 1024 * 1024;
+
+	private static final String[] ACCEPTED_PACKAGES = new String[] {
+			"fr.inria.spirals.npefix.resi.strategies.",
+			"fr.inria.spirals.npefix.resi.context.instance.",
+			"fr.inria.spirals.npefix.resi.oracle."
+	};
+
+	private static final Set<String> ACCEPTED_CLASSES = new HashSet<>(Arrays.asList(
+			"java.lang.Object",
+			"java.lang.String",
+			"java.lang.Number",
+			"java.lang.Enum",
+			"java.lang.Boolean",
+			"java.lang.Byte",
+			"java.lang.Character",
+			"java.lang.Short",
+			"java.lang.Integer",
+			"java.lang.Long",
+			"java.lang.Float",
+			"java.lang.Double",
+			"java.util.ArrayList",
+			"java.util.LinkedList",
+			"java.util.Arrays$ArrayList",
+			"java.util.Collections$EmptyList",
+			"java.util.Collections$SingletonList",
+			"java.util.Collections$UnmodifiableCollection",
+			"java.util.Collections$UnmodifiableList",
+			"java.util.Collections$UnmodifiableRandomAccessList"
+	));
+
+	private DecisionProtocol() {
+	}
+
+	/**
+	 * Returns true if the class can be deserialized from a connection
+	 */
+	static boolean isAccepted(String className) {
+		String name = className;
+		if (name.startsWith("[")) {
+			name = name.substring(name.lastIndexOf('[') + 1);
+			if (name.length() == 1) {
+				// array of primitives
+				return true;
+			}
+			// Lname;
+			name = name.substring(1, name.length() - 1);
+		}
+		if (ACCEPTED_CLASSES.contains(name)) {
+			return true;
+		}
+		for (String acceptedPackage : ACCEPTED_PACKAGES) {
+			if (name.startsWith(acceptedPackage)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Rejects the classes that are not accepted before their instantiation
+	 */
+	private static class FilteredObjectInputStream extends ObjectInputStream {
+
+		FilteredObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if (!isAccepted(desc.getName())) {
+				throw new InvalidClassException(desc.getName(), "not accepted by the decision protocol");
+			}
+			return super.resolveClass(desc);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+			throw new InvalidClassException("proxy", "not accepted by the decision protocol");
+		}
+	}
+
+	static void writeObject(DataOutputStream out, Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+		objectOut.writeObject(object);
+		objectOut.close();
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	static Object readObject(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_OBJECT_SIZE) {
+			throw new ProtocolException("Invalid object size " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		ObjectInputStream objectIn = new FilteredObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return objectIn.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		} finally {
+			objectIn.close();
+		}
+	}
+
+	static void writeNullableString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	static String readNullableString(DataInputStream in) throws IOException {
+		if (in.readBoolean()) {
+			return in.readUTF();
+		}
+		return null;
+	}
+}
@@ -26,6 +26,10 @@ public class ExecutionClient {
 	public static void main(String[] args) {
 		ExecutionClient executionClient = new ExecutionClient(args[0], args[1], new String[0]);
 		Config.CONFIG.setRandomSeed(Integer.parseInt(args[2]));
+		if (args.length > 3) {
+			// the port of the socket decision server
+			executionClient.socketPort = Integer.parseInt(args[3]);
+		}
 		executionClient.run();
 	}
 
@@ -34,6 +38,10 @@ public class ExecutionClient {
 	private int port = Config.CONFIG.getServerPort();
 	private String host = Config.CONFIG.getServerHost();
 	private String[] inputSources;
+	private int socketPort = -1;
+	private Selector selector;
+	private ClassLoader classLoader = getClass().getClassLoader();
+	private boolean isTimeout = false;
 
 	public ExecutionClient(String classTestName, String testName, String[] inputSources) {
 		this.classTestName = classTestName;
@@ -42,20 +50,56 @@ public class ExecutionClient {
 	}
 
 	/**
-	 * Get the selector instantiated in the RMI server.
+	 * Get the selector instantiated in the decision server.
 	 * @return
 	 */
 	private Selector getSelector() {
+		if (selector != null) {
+			return selector;
+		}
 		try {
+			if (socketPort != -1) {
+				selector = new SocketSelector(host, socketPort);
+				return selector;
+			}
 			Registry registry = LocateRegistry.getRegistry(host, port);
-			return  (Selector) registry.lookup("Selector");
+			selector = (Selector) registry.lookup(Config.CONFIG.getServerName());
+			return selector;
 		} catch (Exception e) {
 			// if the decision server is not available exit the execution
 			throw new RuntimeException(e);
 		}
 	}
 
+	public void setSocketPort(int socketPort) {
+		this.socketPort = socketPort;
+	}
+
+	/**
+	 * Sets the class loader of the tested project
+	 */
+	public void setClassLoader(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Returns true if the test did not end before the timeout,
+	 * its thread can still be running
+	 */
+	public boolean isTimeout() {
+		return isTimeout;
+	}
+
 	private void run() {
+		runLapse();
+		System.exit(0);
+	}
+
+	/**
+	 * Runs the test in a new lapse
+	 * @return the lapse or null if the selector refuses the lapse
+	 */
+	public Lapse runLapse() {
 		Selector selector = getSelector();
 		Lapse lapse = new Lapse(selector, inputSources);
 		lapse.setTestClassName(classTestName);
@@ -63,16 +107,17 @@ public class ExecutionClient {
 
 		try {
 			if(!selector.startLaps(lapse)) {
-				return;
+				closeSelector();
+				return null;
 			}
 		} catch (RemoteException e) {
 			throw new RuntimeException(e);
 		}
-		//CallChecker.strategySelector = selector;
-		CallChecker.currentClassLoader = getClass().getClassLoader();
+		CallChecker.setSelector(selector);
+		CallChecker.currentClassLoader = classLoader;
 		final TestRunner testRunner = new TestRunner();
 		try {
-			Class<?> testClass = getClass().forName(classTestName);
+			Class<?> testClass = Class.forName(classTestName, true, classLoader);
 			final Request request = Request.method(testClass, testName);
 
 			ExecutorService executor = Executors.newSingleThreadExecutor();
@@ -80,6 +125,7 @@ public class ExecutionClient {
 			final Future<Result> handler = executor.submit(new Callable<Result>() {
 				@Override
 				public Result call() throws Exception {
+					Thread.currentThread().setContextClassLoader(classLoader);
 					return testRunner.run(request);
 				}
 			});
@@ -87,14 +133,18 @@ public class ExecutionClient {
 			try {
 				executor.shutdownNow();
 				Result result = handler.get(25, TimeUnit.SECONDS);
+				CallChecker.flushApplications();
 				lapse = getSelector().getCurrentLapse();
 				lapse.setOracle(new TestOracle(result));
 			} catch (TimeoutException e) {
+				isTimeout = true;
+				CallChecker.flushApplications();
 				lapse = getSelector().getCurrentLapse();
 				lapse.setOracle(new ExceptionOracle(e));
 				e.printStackTrace();
 				handler.cancel(true);
 			} catch (ExecutionException e) {
+				CallChecker.flushApplications();
 				lapse = getSelector().getCurrentLapse();
 				lapse.setOracle(new ExceptionOracle(e));
 				e.printStackTrace();
@@ -103,10 +153,17 @@ public class ExecutionClient {
 
 
 			selector.restartTest(lapse);
+			closeSelector();
 			System.out.println(lapse);
-			System.exit(0);
+			return lapse;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
+
+	private void closeSelector() {
+		if (selector instanceof SocketSelector) {
+			((SocketSelector) selector).close();
+		}
+	}
 }
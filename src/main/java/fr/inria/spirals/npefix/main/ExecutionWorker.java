@@ -0,0 +1,99 @@
+package fr.inria.spirals.npefix.main;
+
+import fr.inria.spirals.npefix.config.Config;
+import fr.inria.spirals.npefix.resi.CallChecker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Long-lived forked JVM that runs the lapses requested on its standard input.
+ *
+ * Each line of the input is a test (class#method). The classes of the
+ * project are loaded by a new class loader for each lapse, the classes of
+ * npefix and of JUnit stay loaded. The end of each lapse is printed on the
+ * standard output with LAPSE_END, followed by EXIT when the worker stops:
+ * after its maximum number of lapses, after a test timeout (the thread of
+ * the test can still run) or when the memory is almost exhausted.
+ *
+ * Arguments: random seed, port of the socket decision server (-1 for RMI),
+ * classpath of the project, maximum number of lapses
+ */
+public class ExecutionWorker {
+
+	public static final String LAPSE_END = "npefix-worker-lapse-end";
+	public static final String EXIT = "exit";
+
+	public static void main(String[] args) throws IOException {
+		Config.CONFIG.setRandomSeed(Integer.parseInt(args[0]));
+		int socketPort = Integer.parseInt(args[1]);
+		URL[] projectClasspath = getURLs(args[2]);
+		int maxLapses = Integer.parseInt(args[3]);
+
+		BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+		int nbLapses = 0;
+		String line;
+		while ((line = input.readLine()) != null) {
+			String[] test = line.split("#");
+			URLClassLoader classLoader = new URLClassLoader(projectClasspath, ExecutionWorker.class.getClassLoader());
+			ExecutionClient client = new ExecutionClient(test[0], test[1], new String[0]);
+			client.setSocketPort(socketPort);
+			client.setClassLoader(classLoader);
+			try {
+				client.runLapse();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+			// drops the state of the lapse, the classes of the project are released with their class loader
+			CallChecker.clear();
+			CallChecker.currentClassLoader = ExecutionWorker.class.getClassLoader();
+			classLoader.close();
+			nbLapses++;
+
+			boolean isRecycled = client.isTimeout()
+					|| nbLapses >= maxLapses
+					|| isMemoryExhausted();
+			System.out.println(LAPSE_END + (isRecycled ? " " + EXIT : ""));
+			System.out.flush();
+			if (isRecycled) {
+				break;
+			}
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Returns true if the heap is still 3/4 full after a garbage collection
+	 */
+	private static boolean isMemoryExhausted() {
+		Runtime runtime = Runtime.getRuntime();
+		long limit = runtime.maxMemory() / 4 * 3;
+		if (runtime.totalMemory() - runtime.freeMemory() < limit) {
+			return false;
+		}
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory() >= limit;
+	}
+
+	private static URL[] getURLs(String classpath) {
+		List<URL> urls = new ArrayList<>();
+		for (String entry : classpath.split(File.pathSeparator)) {
+			if (entry.isEmpty()) {
+				continue;
+			}
+			try {
+				urls.add(new File(entry).toURI().toURL());
+			} catch (MalformedURLException e) {
+				e.printStackTrace();
+			}
+		}
+		return urls.toArray(new URL[urls.size()]);
+	}
+}
@@ -0,0 +1,291 @@
+package fr.inria.spirals.npefix.main;
+
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.context.instance.Instance;
+import fr.inria.spirals.npefix.resi.oracle.Oracle;
+import fr.inria.spirals.npefix.resi.selector.AbstractSelector;
+import fr.inria.spirals.npefix.resi.selector.Selector;
+import fr.inria.spirals.npefix.resi.strategies.Strategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exposes a selector to the forked JVMs with the binary protocol
+ * of DecisionProtocol on a loopback socket.
+ *
+ * Each connection keeps its own tables of locations and decisions,
+ * the lapse of the test is created and kept on the server side.
+ * Several connections can run their lapses at the same time, their
+ * operations are serialized on the selector.
+ *
+ * A connection that breaks the protocol (an operation on a lapse
+ * before START_LAPSE, an unknown id) is closed.
+ */
+public class SocketDecisionServer {
+
+	private final Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Thread thread;
+
+	public SocketDecisionServer(Selector selector) {
+		this.selector = selector;
+	}
+
+	/**
+	 * Starts the server on an ephemeral loopback port
+	 * @return the port of the server
+	 */
+	public int startServer() {
+		try {
+			serverChannel = ServerSocketChannel.open();
+			serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (serverChannel.isOpen()) {
+					try {
+						final SocketChannel channel = serverChannel.accept();
+						Thread handler = new Thread(new Runnable() {
+							@Override
+							public void run() {
+								handle(channel);
+							}
+						}, "npefix-decision-connection");
+						handler.setDaemon(true);
+						handler.start();
+					} catch (IOException e) {
+						// the server is closed
+						return;
+					}
+				}
+			}
+		}, "npefix-decision-server");
+		thread.setDaemon(true);
+		thread.start();
+		return getPort();
+	}
+
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	public void stopServer() {
+		try {
+			serverChannel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		thread.interrupt();
+	}
+
+	private void handle(SocketChannel channel) {
+		Connection connection = new Connection();
+		try {
+			channel.socket().setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			while (true) {
+				byte op = in.readByte();
+				if (op == DecisionProtocol.CLOSE) {
+					break;
+				}
+				// the selectors are not thread safe
+				synchronized (selector) {
+					connection.process(op, in, out);
+				}
+			}
+		} catch (EOFException e) {
+			// the forked JVM is terminated
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * State of a connection: the id tables and the current lapse
+	 */
+	private class Connection {
+		private final List<Location> locations = new ArrayList<>();
+		private final List<Decision> decisions = new ArrayList<>();
+		private List<Strategy> strategies;
+		private Lapse lapse;
+
+		private List<Strategy> getStrategies() throws IOException {
+			if (strategies == null) {
+				strategies = selector.getStrategies();
+			}
+			return strategies;
+		}
+
+		private void process(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+			if (lapse != null
+					&& selector instanceof AbstractSelector
+					&& selector.getCurrentLapse() != lapse) {
+				// the lapse of another connection was running
+				((AbstractSelector) selector).switchLapse(lapse);
+			}
+			switch (op) {
+			case DecisionProtocol.GET_STRATEGIES:
+				DecisionProtocol.writeObject(out, new ArrayList<>(getStrategies()));
+				out.flush();
+				break;
+			case DecisionProtocol.START_LAPSE:
+				startLapse(in, out);
+				break;
+			case DecisionProtocol.DEFINE_LOCATION:
+				defineLocation(in);
+				break;
+			case DecisionProtocol.DEFINE_DECISION:
+				defineDecision(in);
+				break;
+			case DecisionProtocol.SELECT:
+				checkLapse(op);
+				select(in, out);
+				break;
+			case DecisionProtocol.ADD_DECISION:
+				checkLapse(op);
+				lapse.addDecision(getDecision(in.readInt()));
+				break;
+			case DecisionProtocol.APPLY:
+				checkLapse(op);
+				apply(in);
+				break;
+			case DecisionProtocol.RESTART_TEST:
+				checkLapse(op);
+				lapse.setOracle((Oracle) DecisionProtocol.readObject(in));
+				out.writeBoolean(selector.restartTest(lapse));
+				out.flush();
+				break;
+			default:
+				throw new ProtocolException("Unknown operation " + op);
+			}
+		}
+
+		private void checkLapse(byte op) throws ProtocolException {
+			if (lapse == null) {
+				throw new ProtocolException("Operation " + op + " before the start of a lapse");
+			}
+		}
+
+		private Decision getDecision(int id) throws ProtocolException {
+			if (id < 0 || id >= decisions.size() || decisions.get(id) == null) {
+				throw new ProtocolException("Unknown decision " + id);
+			}
+			return decisions.get(id);
+		}
+
+		private Location getLocation(int id) throws ProtocolException {
+			if (id < 0 || id >= locations.size() || locations.get(id) == null) {
+				throw new ProtocolException("Unknown location " + id);
+			}
+			return locations.get(id);
+		}
+
+		private void startLapse(DataInputStream in, DataOutputStream out) throws IOException {
+			String testClassName = DecisionProtocol.readNullableString(in);
+			String testName = DecisionProtocol.readNullableString(in);
+			String[] inputSources = new String[in.readInt()];
+			for (int i = 0; i < inputSources.length; i++) {
+				inputSources[i] = in.readUTF();
+			}
+			lapse = new Lapse(selector, inputSources);
+			lapse.setTestClassName(testClassName);
+			lapse.setTestName(testName);
+			out.writeBoolean(selector.startLaps(lapse));
+			out.flush();
+		}
+
+		private void defineLocation(DataInputStream in) throws IOException {
+			int id = in.readInt();
+			Location location = new Location(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+			set(locations, id, location);
+		}
+
+		private void defineDecision(DataInputStream in) throws IOException {
+			int id = in.readInt();
+			int strategyIndex = in.readInt();
+			Strategy strategy;
+			if (strategyIndex < 0) {
+				strategy = (Strategy) DecisionProtocol.readObject(in);
+			} else if (strategyIndex < getStrategies().size()) {
+				strategy = getStrategies().get(strategyIndex);
+			} else {
+				throw new ProtocolException("Unknown strategy " + strategyIndex);
+			}
+			Location location = getLocation(in.readInt());
+			Instance instance = (Instance) DecisionProtocol.readObject(in);
+			Decision decision = new Decision(strategy, location, instance);
+			decision.setValueTypeName(DecisionProtocol.readNullableString(in));
+			set(decisions, id, decision);
+		}
+
+		private void select(DataInputStream in, DataOutputStream out) throws IOException {
+			int size = in.readInt();
+			List<Decision<Object>> searchSpace = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				searchSpace.add(getDecision(in.readInt()));
+			}
+			Decision<Object> decision = selector.select(searchSpace);
+			int index = -1;
+			for (int i = 0; i < searchSpace.size(); i++) {
+				if (searchSpace.get(i) == decision) {
+					index = i;
+					break;
+				}
+			}
+			if (index == -1) {
+				index = searchSpace.indexOf(decision);
+			}
+			out.writeInt(index);
+			out.writeUTF(decision.getDecisionType().name());
+			out.writeDouble(decision.getEpsilon());
+			out.flush();
+		}
+
+		private void apply(DataInputStream in) throws IOException {
+			Decision decision = getDecision(in.readInt());
+			int nbApplication = in.readInt();
+			decision.setUsed(true);
+			decision.setNbUse(decision.getNbUse() + nbApplication);
+			lapse.addApplication(decision, nbApplication);
+			selector.updateCurrentLapse(lapse);
+		}
+
+		/**
+		 * The ids are allocated sequentially by the client
+		 */
+		private <T> void set(List<T> list, int id, T element) throws ProtocolException {
+			if (id == list.size()) {
+				list.add(element);
+			} else if (id >= 0 && id < list.size()) {
+				list.set(id, element);
+			} else {
+				throw new ProtocolException("Unexpected id " + id);
+			}
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package fr.inria.spirals.npefix.main;
+
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.selector.Selector;
+import fr.inria.spirals.npefix.resi.strategies.Strategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Client side of the SocketDecisionServer used by the forked JVMs.
+ *
+ * The current lapse is kept in the client, only the new decisions and
+ * the new applications are sent to the server. The operations without
+ * reply stay in the buffer until the next request.
+ */
+public class SocketSelector implements Selector {
+
+	private final SocketChannel channel;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	private final Map<Location, Integer> locationIds = new HashMap<>();
+	private final Map<Decision, Integer> decisionIds = new HashMap<>();
+	private List<Strategy> strategies;
+
+	private Lapse currentLapse;
+	private int nbSentDecisions;
+	private final Map<Decision, Integer> sentApplications = new IdentityHashMap<>();
+
+	public SocketSelector(String host, int port) throws IOException {
+		channel = SocketChannel.open(new InetSocketAddress(host, port));
+		channel.socket().setTcpNoDelay(true);
+		in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+	}
+
+	@Override
+	public synchronized <T> Decision<T> select(List<Decision<T>> decisions) throws RemoteException {
+		try {
+			int[] ids = new int[decisions.size()];
+			for (int i = 0; i < decisions.size(); i++) {
+				ids[i] = getId(decisions.get(i));
+			}
+			out.writeByte(DecisionProtocol.SELECT);
+			out.writeInt(ids.length);
+			for (int i = 0; i < ids.length; i++) {
+				out.writeInt(ids[i]);
+			}
+			out.flush();
+			Decision<T> decision = decisions.get(in.readInt());
+			decision.setDecisionType(Decision.DecisionType.valueOf(in.readUTF()));
+			decision.setEpsilon(in.readDouble());
+			return decision;
+		} catch (IOException e) {
+			throw new RemoteException("Unable to select a decision", e);
+		}
+	}
+
+	@Override
+	public synchronized boolean startLaps(Lapse lapse) throws RemoteException {
+		try {
+			out.writeByte(DecisionProtocol.START_LAPSE);
+			DecisionProtocol.writeNullableString(out, lapse.getTestClassName());
+			DecisionProtocol.writeNullableString(out, lapse.getTestName());
+			String[] inputSources = lapse.getInputSources();
+			if (inputSources == null) {
+				inputSources = new String[0];
+			}
+			out.writeInt(inputSources.length);
+			for (int i = 0; i < inputSources.length; i++) {
+				out.writeUTF(inputSources[i]);
+			}
+			out.flush();
+			currentLapse = lapse;
+			nbSentDecisions = 0;
+			sentApplications.clear();
+			lapse.setFinished(false);
+			return in.readBoolean();
+		} catch (IOException e) {
+			throw new RemoteException("Unable to start the lapse", e);
+		}
+	}
+
+	@Override
+	public synchronized boolean restartTest(Lapse lapse) throws RemoteException {
+		try {
+			sendUpdates(lapse);
+			out.writeByte(DecisionProtocol.RESTART_TEST);
+			DecisionProtocol.writeObject(out, lapse.getOracle());
+			out.flush();
+			lapse.setFinished(true);
+			return in.readBoolean();
+		} catch (IOException e) {
+			throw new RemoteException("Unable to restart the test", e);
+		}
+	}
+
+	@Override
+	public synchronized List<Strategy> getStrategies() throws RemoteException {
+		if (strategies == null) {
+			try {
+				out.writeByte(DecisionProtocol.GET_STRATEGIES);
+				out.flush();
+				strategies = Collections.unmodifiableList((List<Strategy>) DecisionProtocol.readObject(in));
+			} catch (IOException e) {
+				throw new RemoteException("Unable to get the strategies", e);
+			}
+		}
+		return strategies;
+	}
+
+	@Override
+	public Set<Decision> getSearchSpace() throws RemoteException {
+		throw new RemoteException("The search space is not available with the socket transport");
+	}
+
+	@Override
+	public List<Lapse> getLapses() throws RemoteException {
+		throw new RemoteException("The lapses are not available with the socket transport");
+	}
+
+	@Override
+	public synchronized Lapse getCurrentLapse() {
+		return currentLapse;
+	}
+
+	@Override
+	public synchronized Lapse updateCurrentLapse(Lapse updatedLapse) throws RemoteException {
+		if (currentLapse == null || currentLapse.equals(updatedLapse)) {
+			try {
+				sendUpdates(updatedLapse);
+			} catch (IOException e) {
+				throw new RemoteException("Unable to update the lapse", e);
+			}
+			currentLapse = updatedLapse;
+		}
+		return currentLapse;
+	}
+
+	@Override
+	public void reset() throws RemoteException {
+		throw new RemoteException("The selector cannot be reset with the socket transport");
+	}
+
+	public synchronized void close() {
+		try {
+			out.writeByte(DecisionProtocol.CLOSE);
+			out.flush();
+			channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes the decisions and the applications added in the lapse
+	 * since the last update, without flushing the buffer.
+	 */
+	private void sendUpdates(Lapse lapse) throws IOException {
+		synchronized (lapse) {
+			List<Decision> decisions = lapse.getDecisions();
+			for (int i = nbSentDecisions; i < decisions.size(); i++) {
+				int id = getId(decisions.get(i));
+				out.writeByte(DecisionProtocol.ADD_DECISION);
+				out.writeInt(id);
+			}
+			nbSentDecisions = decisions.size();
+
+			for (Map.Entry<Decision, Integer> entry : lapse.getNbApplication().entrySet()) {
+				Decision decision = entry.getKey();
+				Integer sent = sentApplications.get(decision);
+				int nbApplication = entry.getValue() - (sent == null ? 0 : sent);
+				if (nbApplication <= 0) {
+					continue;
+				}
+				int id = getId(decision);
+				out.writeByte(DecisionProtocol.APPLY);
+				out.writeInt(id);
+				out.writeInt(nbApplication);
+				sentApplications.put(decision, entry.getValue());
+			}
+		}
+	}
+
+	private int getId(Location location) throws IOException {
+		Integer id = locationIds.get(location);
+		if (id == null) {
+			id = locationIds.size();
+			locationIds.put(location, id);
+			out.writeByte(DecisionProtocol.DEFINE_LOCATION);
+			out.writeInt(id);
+			out.writeUTF(location.getClassName());
+			out.writeInt(location.getLine());
+			out.writeInt(location.getSourceStart());
+			out.writeInt(location.getSourceEnd());
+		}
+		return id;
+	}
+
+	private int getId(Decision decision) throws IOException {
+		Integer id = decisionIds.get(decision);
+		if (id == null) {
+			int locationId = getId(decision.getLocation());
+			int strategyIndex = getStrategies().indexOf(decision.getStrategy());
+			id = decisionIds.size();
+			decisionIds.put(decision, id);
+			out.writeByte(DecisionProtocol.DEFINE_DECISION);
+			out.writeInt(id);
+			out.writeInt(strategyIndex);
+			if (strategyIndex < 0) {
+				DecisionProtocol.writeObject(out, decision.getStrategy());
+			}
+			out.writeInt(locationId);
+			DecisionProtocol.writeObject(out, decision.getInstance());
+			DecisionProtocol.writeNullableString(out, decision.getValueTypeName());
+		}
+		return id;
+	}
+}
@@ -0,0 +1,92 @@
+package fr.inria.spirals.npefix.main.all;
+
+import fr.inria.spirals.npefix.resi.CallChecker;
+import fr.inria.spirals.npefix.resi.context.NPEOutput;
+import fr.inria.spirals.npefix.resi.selector.Selector;
+import fr.inria.spirals.npefix.transformer.bytecode.BytecodeInstrumenter;
+import fr.inria.spirals.npefix.transformer.bytecode.BytecodeLocations;
+import spoon.reflect.code.CtExpression;
+import spoon.reflect.code.CtFieldAccess;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtSuperAccess;
+import spoon.reflect.code.CtTargetedExpression;
+import spoon.reflect.code.CtThisAccess;
+import spoon.reflect.code.CtTypeAccess;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.cu.position.NoSourcePosition;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repair strategy that instruments the bytecode of the project instead of
+ * its sources: the sources are compiled without processor and the
+ * {@link BytecodeInstrumenter} adds the hooks when the classes are loaded.
+ *
+ * The model of the sources is still built: the patches are generated from
+ * the source positions of the dereferences. Only the strategies that
+ * replace the receiver of a dereference are available.
+ */
+@SuppressWarnings("all")
+public class BytecodeRepairStrategy extends DefaultRepairStrategy {
+
+	public BytecodeRepairStrategy(String[] inputSources) {
+		super(inputSources);
+		processors = new ArrayList<>();
+	}
+
+	@Override
+	public NPEOutput run(Selector selector, List<String> methodTests) {
+		CallChecker.setReplacingReceiverOnly(true);
+		try {
+			return super.run(selector, methodTests);
+		} finally {
+			CallChecker.setReplacingReceiverOnly(false);
+		}
+	}
+
+	/**
+	 * Returns the source positions of the dereferences instrumented by the TargetModifier processor
+	 */
+	public BytecodeLocations getLocations(Collection<CtType<?>> types) {
+		BytecodeLocations locations = new BytecodeLocations();
+		for (CtType<?> type : types) {
+			for (CtTargetedExpression element : type.getElements(new TypeFilter<>(CtTargetedExpression.class))) {
+				String name;
+				if (element instanceof CtInvocation) {
+					name = ((CtInvocation) element).getExecutable().getSimpleName();
+				} else if (element instanceof CtFieldAccess) {
+					name = ((CtFieldAccess) element).getVariable().getSimpleName();
+				} else {
+					continue;
+				}
+				CtExpression target = element.getTarget();
+				// the static and super dereferences are not dereferences in the bytecode
+				if (target == null
+						|| target instanceof CtSuperAccess
+						|| target instanceof CtTypeAccess) {
+					continue;
+				}
+				SourcePosition position = element.getPosition();
+				if (position instanceof NoSourcePosition) {
+					continue;
+				}
+				SourcePosition targetPosition = target.getPosition();
+				String className = element.getParent(CtType.class).getQualifiedName();
+				// the line of a dereference in the bytecode is one of the lines of the expression
+				for (int line = position.getLine(); line <= position.getEndLine(); line++) {
+					if (target instanceof CtThisAccess || targetPosition instanceof NoSourcePosition) {
+						locations.addNotInstrumented(className, line, name);
+					} else {
+						locations.add(className, line, name,
+								targetPosition.getLine(), targetPosition.getSourceStart(), targetPosition.getSourceEnd());
+					}
+				}
+			}
+		}
+		return locations;
+	}
+}
@@ -1,10 +1,13 @@
 package fr.inria.spirals.npefix.main.all;
 
-import fr.inria.spirals.npefix.main.DecisionServer;
+import fr.inria.spirals.npefix.config.Config;
 import fr.inria.spirals.npefix.resi.CallChecker;
+import fr.inria.spirals.npefix.resi.CoverageRecorder;
 import fr.inria.spirals.npefix.resi.context.Lapse;
 import fr.inria.spirals.npefix.resi.context.NPEOutput;
 import fr.inria.spirals.npefix.resi.exception.NoMoreDecision;
+import fr.inria.spirals.npefix.resi.oracle.ExceptionOracle;
+import fr.inria.spirals.npefix.resi.oracle.Oracle;
 import fr.inria.spirals.npefix.resi.oracle.TestOracle;
 import fr.inria.spirals.npefix.resi.selector.Selector;
 import fr.inria.spirals.npefix.transformer.processors.AddImplicitCastChecker;
@@ -13,6 +16,7 @@ import fr.inria.spirals.npefix.transformer.processors.CheckNotNull;
 import fr.inria.spirals.npefix.transformer.processors.ConstructorEncapsulation;
 import fr.inria.spirals.npefix.transformer.processors.ForceNullInit;
 import fr.inria.spirals.npefix.transformer.processors.MethodEncapsulation;
+import fr.inria.spirals.npefix.transformer.processors.StaticStateReset;
 import fr.inria.spirals.npefix.transformer.processors.TargetModifier;
 import fr.inria.spirals.npefix.transformer.processors.TernarySplitter;
 import fr.inria.spirals.npefix.transformer.processors.TryRegister;
@@ -28,6 +32,14 @@ import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Created by Benjamin DANGLOT
@@ -38,6 +50,8 @@ public class DefaultRepairStrategy implements RepairStrategy {
 
 	private String[] inputSources;
 	protected List<AbstractProcessor> processors;
+	private TestSelection testSelection = new TestSelection(Config.CONFIG.getRegressionSample());
+	private ExplorationBudget budget = new ExplorationBudget();
 
 	public DefaultRepairStrategy(String[] inputSources) {
 		processors = new ArrayList<>();
@@ -54,6 +68,10 @@ public class DefaultRepairStrategy implements RepairStrategy {
 		processors.add(new MethodEncapsulation());
 		processors.add(new ConstructorEncapsulation());
 		processors.add(new VariableFor());//
+		if (Config.CONFIG.isResettingStaticState()) {
+			// last: the reset of the static fields replays their instrumented initializers
+			processors.add(new StaticStateReset());
+		}
 		//p.addProcessor(new ArrayRead());
 		this.inputSources = inputSources;
 	}
@@ -61,15 +79,20 @@ public class DefaultRepairStrategy implements RepairStrategy {
 	@Override
 	public NPEOutput run(Selector selector, List<String> methodTests) {
 		CallChecker.enable();
-		CallChecker.strategySelector = selector;
+		CallChecker.setSelector(selector);
 
 		NPEOutput output = new NPEOutput();
 
 		Lapse lapse = new Lapse(selector, inputSources);
 
+		// the tests that never dereferenced null are only run as regression sample
+		List<String> selectedTests = testSelection.select(methodTests);
 		final TestRunner testRunner = new TestRunner();
-		for (int i = 0; i < methodTests.size(); i++) {
-			String method = methodTests.get(i);
+		for (int i = 0; i < selectedTests.size(); i++) {
+			if (budget.isExhausted()) {
+				break;
+			}
+			String method = selectedTests.get(i);
 			String[] split = method.split("#");
 			method = split[1];
 			String className = split[0];
@@ -89,11 +112,24 @@ public class DefaultRepairStrategy implements RepairStrategy {
 			} catch (RemoteException e) {
 				e.printStackTrace();
 			}
-			Result result = testRunner.run(request);
+			String test = className + "#" + method;
+			Result result = null;
+			Oracle oracle;
+			long start = System.currentTimeMillis();
+			try {
+				result = runTest(testRunner, request, budget.getLapseTimeout(test));
+				budget.addDuration(test, System.currentTimeMillis() - start);
+				oracle = new TestOracle(result);
+			} catch (TimeoutException e) {
+				oracle = new ExceptionOracle(e);
+			}
+			CallChecker.flushApplications();
+			CoverageRecorder.flush();
 
-			TestOracle oracle = new TestOracle(result);
 			lapse.setOracle(oracle);
-			if (result.getRunCount() > 0) {
+			testSelection.record(test, lapse, CallChecker.flushDereferencedNull());
+			budget.addLapse(lapse);
+			if (result == null || result.getRunCount() > 0) {
 				if (oracle.isValid() || !oracle.getError().contains(NoMoreDecision.class.getSimpleName())) {
 					System.out.println(lapse);
 				}
@@ -106,13 +142,63 @@ public class DefaultRepairStrategy implements RepairStrategy {
 			}
 			lapse = new Lapse(selector, inputSources);
 			CallChecker.enable();
-			CallChecker.cache.clear();
 			CallChecker.getDecisions().clear();
 		}
 		Collections.sort(output);
 		return output;
 	}
 
+	/**
+	 * Runs the test in a watchdog thread
+	 * @throws TimeoutException if the test did not end before the timeout, its thread
+	 * is interrupted and the hooks stop it (see {@link CallChecker#cancel})
+	 */
+	private Result runTest(final TestRunner testRunner, final Request request, long timeout) throws TimeoutException {
+		final Thread[] lapseThread = new Thread[1];
+		ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				// a test that ignores the interruption does not prevent the exit of the JVM
+				Thread thread = new Thread(runnable, "npefix-lapse");
+				thread.setDaemon(true);
+				lapseThread[0] = thread;
+				return thread;
+			}
+		});
+		Future<Result> handler = executor.submit(new Callable<Result>() {
+			@Override
+			public Result call() {
+				try {
+					return testRunner.run(request);
+				} finally {
+					CallChecker.release(Thread.currentThread());
+				}
+			}
+		});
+		executor.shutdown();
+		try {
+			return handler.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// the thread ignores the interruption when it does not wait
+			CallChecker.cancel(lapseThread[0]);
+			handler.cancel(true);
+			throw e;
+		} catch (InterruptedException e) {
+			handler.cancel(true);
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	public ExplorationBudget getBudget() {
+		return budget;
+	}
+
+	public void setBudget(ExplorationBudget budget) {
+		this.budget = budget;
+	}
+
 	@Override
 	public List<AbstractProcessor> getListOfProcessors() {
 		return this.processors;
@@ -0,0 +1,88 @@
+package fr.inria.spirals.npefix.main.all;
+
+import fr.inria.spirals.npefix.config.Config;
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Budget of an exploration: a global deadline, a number of distinct valid
+ * patches after which the exploration stops, and the timeout of each lapse.
+ *
+ * The timeout of a lapse is iteration.timeout for the first run of a test,
+ * then a multiple of the duration of this first run.
+ */
+public class ExplorationBudget {
+
+	// in ms
+	private static final long MIN_LAPSE_TIMEOUT = 1000;
+	private static final int BASELINE_FACTOR = 10;
+
+	private long deadline = Long.MAX_VALUE;
+	private int targetPatches = 0;
+	private final Set<Set<Decision>> patches = new HashSet<>();
+	// test (class#method) -> duration of its first run in ms
+	private final Map<String, Long> baselines = new HashMap<>();
+
+	/**
+	 * Starts a new exploration with the budgets of the configuration,
+	 * the deadline is counted from now
+	 */
+	public synchronized void start() {
+		int timeBudget = Config.CONFIG.getTimeBudget();
+		deadline = timeBudget > 0 ? System.currentTimeMillis() + timeBudget * 1000L : Long.MAX_VALUE;
+		targetPatches = Config.CONFIG.getPatchBudget();
+		patches.clear();
+	}
+
+	/**
+	 * Returns true if the deadline is passed or if enough patches were found
+	 */
+	public synchronized boolean isExhausted() {
+		return System.currentTimeMillis() >= deadline
+				|| (targetPatches > 0 && patches.size() >= targetPatches);
+	}
+
+	/**
+	 * Counts the decisions of a passing lapse as a patch
+	 */
+	public synchronized void addLapse(Lapse lapse) {
+		if (lapse.getOracle() != null && lapse.getOracle().isValid() && !lapse.getDecisions().isEmpty()) {
+			patches.add(new HashSet<>(lapse.getDecisions()));
+		}
+	}
+
+	public synchronized int getNbPatches() {
+		return patches.size();
+	}
+
+	/**
+	 * Returns the timeout of the next lapse of a test in ms, never after the deadline
+	 */
+	public synchronized long getLapseTimeout(String test) {
+		Long baseline = baselines.get(test);
+		long timeout;
+		if (baseline == null) {
+			timeout = Config.CONFIG.getTimeoutIteration() * 1000L;
+		} else {
+			timeout = Math.max(MIN_LAPSE_TIMEOUT, baseline * BASELINE_FACTOR);
+		}
+		if (deadline != Long.MAX_VALUE) {
+			timeout = Math.max(1, Math.min(timeout, deadline - System.currentTimeMillis()));
+		}
+		return timeout;
+	}
+
+	/**
+	 * Records the duration of the first run of a test
+	 */
+	public synchronized void addDuration(String test, long duration) {
+		if (!baselines.containsKey(test)) {
+			baselines.put(test, duration);
+		}
+	}
+}
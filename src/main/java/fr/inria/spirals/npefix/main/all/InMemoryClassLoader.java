@@ -0,0 +1,52 @@
+package fr.inria.spirals.npefix.main.all;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+
+/**
+ * Loads the classes of a class store before the classes of its parent and
+ * of its URLs, the other classes are loaded as by a {@link URLClassLoader}.
+ */
+public class InMemoryClassLoader extends URLClassLoader {
+
+	// binary name -> bytecode
+	private final Map<String, byte[]> classes;
+
+	public InMemoryClassLoader(Map<String, byte[]> classes, URL[] urls, ClassLoader parent) {
+		super(urls, parent);
+		this.classes = classes;
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		byte[] bytecode = classes.get(name);
+		if (bytecode == null) {
+			return super.loadClass(name, resolve);
+		}
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> loadedClass = findLoadedClass(name);
+			if (loadedClass == null) {
+				loadedClass = defineClass(name, bytecode, 0, bytecode.length);
+			}
+			if (resolve) {
+				resolveClass(loadedClass);
+			}
+			return loadedClass;
+		}
+	}
+
+	@Override
+	public InputStream getResourceAsStream(String name) {
+		// the libraries that read the bytecode of the classes (mock frameworks, ...)
+		if (name.endsWith(".class")) {
+			byte[] bytecode = classes.get(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+			if (bytecode != null) {
+				return new ByteArrayInputStream(bytecode);
+			}
+		}
+		return super.getResourceAsStream(name);
+	}
+}
@@ -0,0 +1,177 @@
+package fr.inria.spirals.npefix.main.all;
+
+import spoon.SpoonException;
+import spoon.compiler.Environment;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.PrettyPrinter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles the instrumented model without the file system: the types are
+ * printed to in-memory sources and compiled by javax.tools to an in-memory
+ * class store, which is loaded by an {@link InMemoryClassLoader}.
+ */
+public class InMemoryCompiler {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final String classpath;
+	private final int complianceLevel;
+	// binary name -> bytecode
+	private final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+
+	public InMemoryCompiler(String classpath, int complianceLevel) {
+		this.classpath = classpath;
+		this.complianceLevel = complianceLevel;
+	}
+
+	/**
+	 * Returns true if the JVM provides a Java compiler (JDK)
+	 */
+	public static boolean isAvailable() {
+		return ToolProvider.getSystemJavaCompiler() != null;
+	}
+
+	/**
+	 * Prints the top-level types with their imports
+	 * @return the sources by qualified name
+	 */
+	public Map<String, String> print(Environment environment, Collection<CtType<?>> types) {
+		Map<String, String> sources = new HashMap<>();
+		for (CtType<?> type : types) {
+			PrettyPrinter printer = environment.createPrettyPrinter();
+			printer.calculate(type.getFactory().CompilationUnit().getOrCreate(type), Collections.<CtType<?>>singletonList(type));
+			sources.put(type.getQualifiedName(), printer.getResult());
+		}
+		return sources;
+	}
+
+	/**
+	 * Compiles the sources to the class store
+	 */
+	public void compile(Map<String, String> sources) {
+		JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		List<JavaFileObject> files = new ArrayList<>();
+		for (Map.Entry<String, String> source : sources.entrySet()) {
+			files.add(new SourceFile(source.getKey(), source.getValue()));
+		}
+		String version = complianceLevel < 9 ? "1." + complianceLevel : complianceLevel + "";
+		List<String> options = Arrays.asList("-cp", classpath,
+				"-source", version,
+				"-target", version,
+				"-nowarn");
+		try (JavaFileManager fileManager = new ClassStore(javaCompiler.getStandardFileManager(diagnostics, null, UTF8))) {
+			Boolean success = javaCompiler.getTask(null, fileManager, diagnostics, options, null, files).call();
+			if (!success) {
+				StringBuilder message = new StringBuilder("Unable to compile the instrumented classes");
+				for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+					if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+						message.append('\n').append(diagnostic);
+					}
+				}
+				throw new SpoonException(message.toString());
+			}
+		} catch (IOException e) {
+			throw new SpoonException(e);
+		}
+	}
+
+	public Map<String, byte[]> getClasses() {
+		return classes;
+	}
+
+	/**
+	 * Writes the sources in a directory, for debugging
+	 */
+	public void writeSources(File directory, Map<String, String> sources) {
+		for (Map.Entry<String, String> source : sources.entrySet()) {
+			write(new File(directory, source.getKey().replace('.', File.separatorChar) + ".java"),
+					source.getValue().getBytes(UTF8));
+		}
+	}
+
+	/**
+	 * Writes the class store in a directory, for the forked JVMs
+	 */
+	public void writeClasses(File directory) {
+		for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+			write(new File(directory, entry.getKey().replace('.', File.separatorChar) + ".class"), entry.getValue());
+		}
+	}
+
+	private void write(File file, byte[] content) {
+		file.getParentFile().mkdirs();
+		try {
+			Files.write(file.toPath(), content);
+		} catch (IOException e) {
+			throw new SpoonException(e);
+		}
+	}
+
+	private static class SourceFile extends SimpleJavaFileObject {
+		private final String content;
+
+		SourceFile(String qualifiedName, String content) {
+			super(URI.create("string:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.content = content;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return content;
+		}
+	}
+
+	/**
+	 * Keeps the class files produced by the compiler in the class store
+	 */
+	private class ClassStore extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		ClassStore(StandardJavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, final String className, JavaFileObject.Kind kind, FileObject sibling) {
+			return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+				@Override
+				public OutputStream openOutputStream() {
+					return new ByteArrayOutputStream() {
+						@Override
+						public void close() throws IOException {
+							super.close();
+							classes.put(className, toByteArray());
+						}
+					};
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package fr.inria.spirals.npefix.main.all;
+
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.context.LocationTable;
+import spoon.processing.AbstractProcessor;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.reference.CtTypeReference;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Content-addressed cache of the instrumentation of a project.
+ *
+ * The cache is valid while the classpath, the compliance level, the
+ * processors, the selected methods and npefix itself do not change. It keeps the hash of each
+ * compilation unit, the top-level types of the compilation unit and the
+ * location table, so that the locations keep their id when only some
+ * compilation units are instrumented again.
+ */
+public class InstrumentationCache {
+
+	private static final String KEY = "key";
+	private static final String FILE_PREFIX = "file:";
+	private static final String TYPES_PREFIX = "types:";
+
+	private final File directory;
+	private final String key;
+	private final Properties manifest = new Properties();
+	private final Map<String, String> hashes = new HashMap<>();
+
+	public InstrumentationCache(File directory, String classpath, int complianceLevel, List<AbstractProcessor> processors, String selection) {
+		this.directory = directory;
+		StringBuilder key = new StringBuilder();
+		key.append(classpath).append('\n').append(complianceLevel).append('\n');
+		key.append(selection).append('\n');
+		for (AbstractProcessor processor : processors) {
+			key.append(processor.getClass().getName()).append('\n');
+		}
+		// a new build of npefix can change the instrumentation
+		URL npefix = InstrumentationCache.class.getProtectionDomain().getCodeSource().getLocation();
+		key.append(npefix).append(new File(npefix.getPath()).lastModified());
+		this.key = hash(key.toString().getBytes(Charset.forName("UTF-8")));
+
+		File manifestFile = getManifestFile();
+		if (manifestFile.exists()) {
+			try (FileReader reader = new FileReader(manifestFile)) {
+				manifest.load(reader);
+			} catch (IOException e) {
+				manifest.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the cache was created with the same configuration
+	 */
+	public boolean isValid() {
+		return key.equals(manifest.getProperty(KEY)) && getLocationFile().exists();
+	}
+
+	/**
+	 * Returns the types whose compilation unit changed since the cache was saved,
+	 * and the types that reference them
+	 */
+	public Set<CtType<?>> getChangedTypes(Collection<CtType<?>> types) {
+		Set<CtType<?>> changedTypes = new HashSet<>();
+		Set<String> changedNames = new HashSet<>();
+		for (CtType<?> type : types) {
+			String path = getPath(type);
+			if (path == null || !getHash(path).equals(manifest.getProperty(FILE_PREFIX + path))) {
+				changedTypes.add(type);
+				changedNames.add(type.getQualifiedName());
+			}
+		}
+		changedNames.addAll(getRemovedTypes(types));
+		if (changedNames.isEmpty()) {
+			return changedTypes;
+		}
+		// the dependents are compiled again against the new types
+		for (CtType<?> type : types) {
+			if (changedTypes.contains(type)) {
+				continue;
+			}
+			for (CtTypeReference<?> reference : type.getReferencedTypes()) {
+				if (changedNames.contains(reference.getQualifiedName())) {
+					changedTypes.add(type);
+					break;
+				}
+			}
+		}
+		return changedTypes;
+	}
+
+	/**
+	 * Returns the top-level types of the cache that do not exist anymore
+	 */
+	public Set<String> getRemovedTypes(Collection<CtType<?>> types) {
+		Set<String> existingTypes = new HashSet<>();
+		for (CtType<?> type : types) {
+			existingTypes.add(type.getQualifiedName());
+		}
+		Set<String> removedTypes = new HashSet<>();
+		for (String property : manifest.stringPropertyNames()) {
+			if (!property.startsWith(TYPES_PREFIX)) {
+				continue;
+			}
+			for (String type : manifest.getProperty(property).split(",")) {
+				if (!type.isEmpty() && !existingTypes.contains(type)) {
+					removedTypes.add(type);
+				}
+			}
+		}
+		return removedTypes;
+	}
+
+	/**
+	 * Restores the location table of the cached instrumentation
+	 */
+	public void loadLocations() throws IOException {
+		LocationTable.clear();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(getLocationFile())))) {
+			while (true) {
+				String className;
+				try {
+					className = in.readUTF();
+				} catch (EOFException e) {
+					break;
+				}
+				LocationTable.register(className, in.readInt(), in.readInt(), in.readInt());
+			}
+		}
+	}
+
+	/**
+	 * Saves the hashes of the compilation units of the types and the location table
+	 */
+	public void save(Collection<CtType<?>> types) throws IOException {
+		directory.mkdirs();
+		Properties newManifest = new Properties();
+		newManifest.setProperty(KEY, key);
+		Map<String, StringBuilder> typesByFile = new HashMap<>();
+		for (CtType<?> type : types) {
+			String path = getPath(type);
+			if (path == null) {
+				continue;
+			}
+			newManifest.setProperty(FILE_PREFIX + path, getHash(path));
+			if (!typesByFile.containsKey(path)) {
+				typesByFile.put(path, new StringBuilder());
+			}
+			typesByFile.get(path).append(type.getQualifiedName()).append(',');
+		}
+		for (Map.Entry<String, StringBuilder> entry : typesByFile.entrySet()) {
+			newManifest.setProperty(TYPES_PREFIX + entry.getKey(), entry.getValue().toString());
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getLocationFile())))) {
+			for (int i = 0; i < LocationTable.size(); i++) {
+				Location location = LocationTable.get(i);
+				if (location == null) {
+					// the next ids are allocated again
+					break;
+				}
+				out.writeUTF(location.getClassName());
+				out.writeInt(location.getLine());
+				out.writeInt(location.getSourceStart());
+				out.writeInt(location.getSourceEnd());
+			}
+		}
+		try (FileWriter writer = new FileWriter(getManifestFile())) {
+			newManifest.store(writer, "npefix instrumentation cache");
+		}
+		manifest.clear();
+		manifest.putAll(newManifest);
+	}
+
+	private String getPath(CtType<?> type) {
+		if (type.getPosition() == null || type.getPosition().getFile() == null) {
+			return null;
+		}
+		return type.getPosition().getFile().getAbsolutePath();
+	}
+
+	private String getHash(String path) {
+		String hash = hashes.get(path);
+		if (hash == null) {
+			try {
+				hash = hash(Files.readAllBytes(new File(path).toPath()));
+			} catch (IOException e) {
+				hash = "";
+			}
+			hashes.put(path, hash);
+		}
+		return hash;
+	}
+
+	private static String hash(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+			StringBuilder output = new StringBuilder();
+			for (byte b : digest) {
+				output.append(String.format("%02x", b));
+			}
+			return output.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private File getManifestFile() {
+		return new File(directory, "manifest.properties");
+	}
+
+	private File getLocationFile() {
+		return new File(directory, "locations.bin");
+	}
+}
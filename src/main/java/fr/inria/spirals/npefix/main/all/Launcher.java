@@ -3,8 +3,12 @@ package fr.inria.spirals.npefix.main.all;
 import fr.inria.spirals.npefix.config.Config;
 import fr.inria.spirals.npefix.main.DecisionServer;
 import fr.inria.spirals.npefix.main.ExecutionClient;
+import fr.inria.spirals.npefix.main.ExecutionWorker;
+import fr.inria.spirals.npefix.main.SocketDecisionServer;
 import fr.inria.spirals.npefix.resi.CallChecker;
+import fr.inria.spirals.npefix.resi.StaticStateRegistry;
 import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.LocationTable;
 import fr.inria.spirals.npefix.resi.context.NPEOutput;
 import fr.inria.spirals.npefix.resi.exception.NoMoreDecision;
 import fr.inria.spirals.npefix.resi.oracle.ExceptionOracle;
@@ -12,6 +16,10 @@ import fr.inria.spirals.npefix.resi.selector.DomSelector;
 import fr.inria.spirals.npefix.resi.selector.RandomSelector;
 import fr.inria.spirals.npefix.resi.selector.Selector;
 import fr.inria.spirals.npefix.resi.strategies.Strategy;
+import fr.inria.spirals.npefix.transformer.bytecode.BytecodeInstrumenter;
+import fr.inria.spirals.npefix.transformer.bytecode.BytecodeLocations;
+import fr.inria.spirals.npefix.transformer.bytecode.NPEFixAgent;
+import fr.inria.spirals.npefix.transformer.processors.StaticStateReset;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -21,42 +29,77 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spoon.SpoonException;
+import spoon.OutputType;
 import spoon.SpoonModelBuilder;
+import spoon.processing.AbstractProcessor;
 import spoon.processing.ProcessingManager;
 import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.Filter;
 import spoon.reflect.visitor.filter.AnnotationFilter;
 import spoon.support.QueueProcessingManager;
 import utils.TestClassesFinder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
 public class Launcher {
 
     private final String[] sourcePath;
     private int complianceLevel;
     private final String classpath;
+    private final String projectClasspath;
     private final String sourceOutput;
     private final String binOutput;
     private final SpoonModelBuilder compiler;
     private spoon.Launcher spoon;
+    // class loader of the instrumented project reused by the runs
+    private URLClassLoader projectClassLoader;
+    // methods to instrument, null to instrument the whole project
+    private StackTraceSelection selection;
+    // classes of the in-memory instrumentation, null when the classes are in binOutput
+    private InMemoryCompiler inMemoryCompiler;
+    // classes of the bytecode instrumentation loaded by the runs in this JVM
+    private Map<String, byte[]> bytecodeClasses;
+    private TestIndex testIndex;
+    private final ExplorationBudget budget = new ExplorationBudget();
 
     private RepairStrategy repairStrategy;
 
@@ -78,6 +121,7 @@ public class Launcher {
             classpath = classpath + File.pathSeparator;
         }
 
+        this.projectClasspath = classpath;
         this.classpath = classpath + System.getProperty("java.class.path");
         this.sourceOutput = sourceOutput;
         this.binOutput = binOutput;
@@ -87,10 +131,16 @@ public class Launcher {
         spoon.setBinaryOutputDirectory(binOutput);
 
         this.repairStrategy = repairStrategy;
+        if (repairStrategy instanceof DefaultRepairStrategy) {
+            // the lapses stop at the deadline of the exploration
+            ((DefaultRepairStrategy) repairStrategy).setBudget(budget);
+        }
     }
 
     /**
-     *
+     * Instruments the project. Only the compilation units that changed since
+     * the previous instrumentation (and the types that reference them) are
+     * instrumented and compiled again.
      */
     public void instrument() {
         ProcessingManager p = new QueueProcessingManager(spoon.getFactory());
@@ -101,19 +151,337 @@ public class Launcher {
 
         logger.debug("Start code instrumentation");
 
+        // the new classes are loaded by a new class loader
+        projectClassLoader = null;
+        inMemoryCompiler = null;
+        bytecodeClasses = null;
+
+        if (Config.CONFIG.isInMemoryInstrumentation()) {
+            if (InMemoryCompiler.isAvailable()) {
+                // the in-memory classes are not kept between two instrumentations
+                LocationTable.clear();
+                p.process(getElementsToInstrument(getAllClasses()));
+                compileInMemory(spoon.getFactory().Class().getAll());
+                if (repairStrategy instanceof BytecodeRepairStrategy) {
+                    instrumentBytecode(getAllClasses());
+                }
+                logger.debug("End code instrumentation");
+                return;
+            }
+            logger.warn("No system Java compiler, the instrumented classes are written on the disk");
+        }
+
+        InstrumentationCache cache = new InstrumentationCache(new File(binOutput + "-cache"),
+                classpath, complianceLevel, this.repairStrategy.getListOfProcessors(),
+                selection == null ? "" : selection.toString());
+        List<CtType<?>> allTypes = spoon.getFactory().Class().getAll();
         Set<CtType<?>> allWithoutTest = getAllClasses();
-        p.process(allWithoutTest);
+        Set<CtType<?>> changedTypes = null;
+        if (cache.isValid()
+                && new File(binOutput).exists()
+                && ToolProvider.getSystemJavaCompiler() != null) {
+            try {
+                // the unchanged locations keep their id
+                cache.loadLocations();
+                changedTypes = cache.getChangedTypes(allTypes);
+            } catch (IOException e) {
+                logger.warn("Unable to read the instrumentation cache", e);
+            }
+        }
 
-        spoon.prettyprint();
+        if (changedTypes == null) {
+            // the location ids are allocated from 0 for each instrumentation
+            LocationTable.clear();
+            p.process(getElementsToInstrument(allWithoutTest));
+            if (repairStrategy instanceof BytecodeRepairStrategy) {
+                compile(getSourceFiles(allTypes));
+            } else {
+                spoon.prettyprint();
+                try {
+                    compiler.compile();
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                    throw e;
+                }
+            }
+        } else {
+            logger.debug(changedTypes.size() + "/" + allTypes.size() + " types changed since the last instrumentation");
+            Set<CtType<?>> toInstrument = new HashSet<>(changedTypes);
+            toInstrument.retainAll(allWithoutTest);
+            p.process(getElementsToInstrument(toInstrument));
+            for (String removedType : cache.getRemovedTypes(allTypes)) {
+                deleteClassFiles(removedType);
+            }
+            compileIncrementally(changedTypes);
+        }
         try {
-            compiler.compile();
-        } catch (Throwable e) {
-            e.printStackTrace();
-            throw e;
+            cache.save(allTypes);
+        } catch (IOException e) {
+            logger.warn("Unable to save the instrumentation cache", e);
+        }
+        if (repairStrategy instanceof BytecodeRepairStrategy) {
+            instrumentBytecode(allWithoutTest);
         }
         logger.debug("End code instrumentation");
     }
 
+    /**
+     * Restricts the instrumentation to the methods selected from the
+     * stack traces of the NPEs of the tests. The failing tests are run
+     * once with the classes of the classpath, not instrumented.
+     * @param radius the call-graph distance of the instrumented methods to the stack traces
+     * @return false if the tests did not produce an NPE, the whole project is then instrumented
+     */
+    public boolean selectFromFailingTests(List<String> tests, int radius) {
+        URLClassLoader classLoader = getUrlClassLoader(spoon.getModelBuilder().getSourceClasspath());
+        StackTraceSelection selection = StackTraceSelection.fromFailingTests(classLoader, tests, radius);
+        if (selection.isEmpty()) {
+            logger.warn("No NPE in the tests, the whole project is instrumented");
+            this.selection = null;
+            return false;
+        }
+        this.selection = selection;
+        return true;
+    }
+
+    public void setSelection(StackTraceSelection selection) {
+        this.selection = selection;
+    }
+
+    /**
+     * Returns the types, or the selected methods of the types in the selective mode
+     */
+    private Collection<? extends CtElement> getElementsToInstrument(Set<CtType<?>> types) {
+        if (selection == null) {
+            return types;
+        }
+        List<CtExecutable<?>> executables = new ArrayList<>();
+        for (CtExecutable<?> executable : selection.select(spoon.getFactory())) {
+            CtType<?> type = executable.getParent(CtType.class);
+            while (type != null && !type.isTopLevel()) {
+                type = type.getParent(CtType.class);
+            }
+            if (types.contains(type)) {
+                executables.add(executable);
+            }
+        }
+        logger.debug(executables.size() + " methods selected from the stack traces");
+        return executables;
+    }
+
+    /**
+     * Prints the changed types and compiles them against the classes of the previous instrumentation
+     */
+    private void compileIncrementally(final Set<CtType<?>> changedTypes) {
+        if (changedTypes.isEmpty()) {
+            return;
+        }
+        if (repairStrategy instanceof BytecodeRepairStrategy) {
+            for (CtType<?> type : changedTypes) {
+                deleteClassFiles(type.getQualifiedName());
+            }
+            compile(getSourceFiles(changedTypes));
+            return;
+        }
+        compiler.generateProcessedSourceFiles(OutputType.COMPILATION_UNITS, new Filter<CtType<?>>() {
+            @Override
+            public boolean matches(CtType<?> element) {
+                return changedTypes.contains(element);
+            }
+        });
+        Set<File> files = new HashSet<>();
+        for (CtType<?> type : changedTypes) {
+            deleteClassFiles(type.getQualifiedName());
+            File file = new File(sourceOutput, type.getQualifiedName().replace('.', File.separatorChar) + ".java");
+            if (file.exists()) {
+                files.add(file);
+            }
+        }
+        compile(files);
+    }
+
+    /**
+     * Returns the original source files of the types: the bytecode
+     * instrumentation compiles the sources that are not processed, the line
+     * numbers of the bytecode are then the ones of the source positions of the model
+     */
+    private Set<File> getSourceFiles(Collection<CtType<?>> types) {
+        Set<File> files = new HashSet<>();
+        for (CtType<?> type : types) {
+            File file = type.getPosition().getFile();
+            if (file != null) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Compiles source files in binOutput
+     */
+    private void compile(Set<File> files) {
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (javaCompiler == null) {
+            throw new SpoonException("No system Java compiler, a JDK is required");
+        }
+        try (StandardJavaFileManager fileManager = javaCompiler.getStandardFileManager(null, null, null)) {
+            String version = complianceLevel < 9 ? "1." + complianceLevel : complianceLevel + "";
+            List<String> options = Arrays.asList("-d", binOutput,
+                    "-cp", binOutput + File.pathSeparator + classpath,
+                    "-source", version,
+                    "-target", version,
+                    "-encoding", spoon.getEnvironment().getEncoding().name(),
+                    "-nowarn");
+            Boolean success = javaCompiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(files)).call();
+            if (!success) {
+                throw new SpoonException("Unable to compile the instrumented classes");
+            }
+        } catch (IOException e) {
+            throw new SpoonException(e);
+        }
+    }
+
+    /**
+     * Prints and compiles all the types in memory, the sources are written only for debugging.
+     * The bytecode instrumentation compiles the original sources.
+     */
+    private void compileInMemory(List<CtType<?>> types) {
+        InMemoryCompiler inMemoryCompiler = new InMemoryCompiler(classpath, complianceLevel);
+        Map<String, String> sources;
+        if (repairStrategy instanceof BytecodeRepairStrategy) {
+            // the line numbers of the bytecode are the ones of the source positions of the model
+            sources = readSources(types);
+        } else {
+            sources = inMemoryCompiler.print(spoon.getEnvironment(), types);
+            if (Config.CONFIG.isWritingInstrumentedSources()) {
+                inMemoryCompiler.writeSources(new File(sourceOutput), sources);
+            }
+        }
+        inMemoryCompiler.compile(sources);
+        logger.debug(inMemoryCompiler.getClasses().size() + " classes compiled in memory");
+        this.inMemoryCompiler = inMemoryCompiler;
+    }
+
+    /**
+     * Returns the content of the original source files of the types, by the
+     * qualified name of the type named as the file
+     */
+    private Map<String, String> readSources(Collection<CtType<?>> types) {
+        Map<String, String> sources = new HashMap<>();
+        for (File file : getSourceFiles(types)) {
+            String packageName = "";
+            for (CtType<?> type : types) {
+                if (file.equals(type.getPosition().getFile()) && type.getPackage() != null
+                        && !type.getPackage().isUnnamedPackage()) {
+                    packageName = type.getPackage().getQualifiedName() + ".";
+                    break;
+                }
+            }
+            String name = file.getName().substring(0, file.getName().length() - ".java".length());
+            try {
+                sources.put(packageName + name,
+                        new String(Files.readAllBytes(file.toPath()), spoon.getEnvironment().getEncoding()));
+            } catch (IOException e) {
+                throw new SpoonException(e);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Adds the hooks to the bytecode of the classes compiled without processor.
+     * The classes in binOutput stay unchanged, the forked JVMs instrument them with the agent.
+     */
+    private void instrumentBytecode(Set<CtType<?>> types) {
+        BytecodeLocations locations = ((BytecodeRepairStrategy) repairStrategy).getLocations(types);
+        BytecodeInstrumenter instrumenter = new BytecodeInstrumenter(locations);
+        if (inMemoryCompiler != null) {
+            for (Map.Entry<String, byte[]> entry : inMemoryCompiler.getClasses().entrySet()) {
+                if (instrumenter.isToInstrument(entry.getKey())) {
+                    entry.setValue(instrumenter.instrument(entry.getValue()));
+                }
+            }
+            return;
+        }
+        Map<String, byte[]> classes = new HashMap<>();
+        try {
+            for (CtType<?> type : types) {
+                String packageName = type.getPackage() == null ? "" : type.getPackage().getQualifiedName();
+                for (File file : getClassFiles(type.getQualifiedName())) {
+                    String name = file.getName().substring(0, file.getName().length() - ".class".length());
+                    String className = packageName.isEmpty() ? name : packageName + "." + name;
+                    if (instrumenter.isToInstrument(className)) {
+                        classes.put(className, instrumenter.instrument(Files.readAllBytes(file.toPath())));
+                    }
+                }
+            }
+            locations.save(getBytecodeLocationFile());
+        } catch (IOException e) {
+            throw new SpoonException(e);
+        }
+        logger.debug(classes.size() + " classes instrumented in the bytecode");
+        bytecodeClasses = classes;
+    }
+
+    private File getBytecodeLocationFile() {
+        return new File(binOutput + "-bytecode.bin");
+    }
+
+    /**
+     * Returns the options of the forked JVMs that run the classes instrumented
+     * in the bytecode: the agent that instruments the classes of binOutput
+     * and the restriction of the strategies to the isCalled hooks
+     */
+    private List<String> getBytecodeOptions() {
+        List<String> options = new ArrayList<>();
+        if (!(repairStrategy instanceof BytecodeRepairStrategy)) {
+            return options;
+        }
+        options.add("-D" + CallChecker.REPLACING_RECEIVER_ONLY + "=true");
+        if (bytecodeClasses == null) {
+            // the classes compiled in memory are written instrumented
+            return options;
+        }
+        String agent = NPEFixAgent.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        if (!agent.endsWith(".jar")) {
+            // the forked JVMs would run the classes without the hooks
+            throw new IllegalStateException("The bytecode instrumentation of the forked JVMs requires the jar of npefix (Premain-Class), npefix is loaded from " + agent);
+        }
+        options.add("-javaagent:" + agent + "=" + getBytecodeLocationFile().getAbsolutePath());
+        return options;
+    }
+
+    /**
+     * Deletes the class files of a top-level type and of its nested types
+     */
+    private void deleteClassFiles(String qualifiedName) {
+        for (File file : getClassFiles(qualifiedName)) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns the class files of a top-level type and of its nested types in binOutput
+     */
+    private List<File> getClassFiles(String qualifiedName) {
+        int index = qualifiedName.lastIndexOf('.');
+        String simpleName = qualifiedName.substring(index + 1);
+        File directory = new File(binOutput, index == -1 ? "" : qualifiedName.substring(0, index).replace('.', File.separatorChar));
+        List<File> classFiles = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return classFiles;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.equals(simpleName + ".class") || name.startsWith(simpleName + "$")) {
+                classFiles.add(file);
+            }
+        }
+        return classFiles;
+    }
+
     /**
      * Get all classes without tests
      * @return
@@ -206,15 +574,16 @@ public class Launcher {
     public NPEOutput run(int nbIteration, Selector selector) {
         NPEOutput output = new NPEOutput();
 
-        DecisionServer decisionServer = new DecisionServer(selector);
-        decisionServer.startServer();
+        // the tests are executed in this JVM: the selector is called directly
+        CallChecker.setSelector(selector);
         List<String> tests = this.getTests();
         if(tests.isEmpty()) {
             throw new RuntimeException("No test found");
         }
         Date initEndDate = new Date();
         int countError = 0;
-        while (output.size() < nbIteration) {
+        budget.start();
+        while (output.size() < nbIteration && !budget.isExhausted()) {
             if(countError > 5) {
                 break;
             }
@@ -265,8 +634,6 @@ public class Launcher {
         output.setStart(initEndDate);
         output.setEnd(new Date());
 
-        decisionServer.stopServer();
-
         return output;
     }
 
@@ -285,8 +652,83 @@ public class Launcher {
         String[] sourceClasspath_temp = new String[sourceClasspath.length + 1];
         sourceClasspath_temp[0] = spoon.getModelBuilder().getBinaryOutputDirectory().getAbsolutePath();
         System.arraycopy(sourceClasspath, 0, sourceClasspath_temp, 1, sourceClasspath.length);
-        CallChecker.currentClassLoader = getUrlClassLoader(sourceClasspath_temp);
-        return this.repairStrategy.run(selector, methodTests);
+        if (projectClassLoader != null && isResettingStaticState()
+                && StaticStateRegistry.isComplete()
+                && !hasMutableStaticState(methodTests)) {
+            // the project stays loaded, only its static state is reinitialized
+            StaticStateRegistry.reset();
+        } else {
+            StaticStateRegistry.clear();
+            if (inMemoryCompiler != null) {
+                // the resources copied in binOutput are loaded after the classes compiled in memory
+                projectClassLoader = new InMemoryClassLoader(inMemoryCompiler.getClasses(),
+                        getURLs(sourceClasspath_temp),
+                        Thread.currentThread().getContextClassLoader());
+            } else if (bytecodeClasses != null) {
+                // the instrumented classes are loaded before the ones of binOutput
+                projectClassLoader = new InMemoryClassLoader(bytecodeClasses,
+                        getURLs(sourceClasspath_temp),
+                        Thread.currentThread().getContextClassLoader());
+            } else {
+                projectClassLoader = getUrlClassLoader(sourceClasspath_temp);
+            }
+        }
+        CallChecker.currentClassLoader = projectClassLoader;
+        NPEOutput output = this.repairStrategy.run(selector, methodTests);
+        logger.debug("Search space cache: " + CallChecker.cache.getHits() + " hits, "
+                + CallChecker.cache.getMisses() + " misses, "
+                + CallChecker.cache.getEvictions() + " evictions");
+        return output;
+    }
+
+    /**
+     * Returns true if the instrumentation adds the reset of the static state
+     */
+    private boolean isResettingStaticState() {
+        if (selection != null) {
+            // the classes are not processed in the selective mode
+            return false;
+        }
+        for (AbstractProcessor processor : repairStrategy.getListOfProcessors()) {
+            if (processor instanceof StaticStateReset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if a test class or one of its superclasses loaded by the
+     * project class loader has a static field that is not a constant.
+     * The test classes are not instrumented, their state cannot be reset.
+     */
+    private boolean hasMutableStaticState(List<String> methodTests) {
+        Set<String> testClasses = new HashSet<>();
+        for (int i = 0; i < methodTests.size(); i++) {
+            testClasses.add(methodTests.get(i).split("#")[0]);
+        }
+        for (String testClass : testClasses) {
+            Class<?> clazz;
+            try {
+                clazz = Class.forName(testClass, false, projectClassLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                return true;
+            }
+            while (clazz != null && clazz.getClassLoader() == projectClassLoader) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    if (!Modifier.isFinal(modifiers)
+                            || !field.getType().isPrimitive() && field.getType() != String.class) {
+                        return true;
+                    }
+                }
+                clazz = clazz.getSuperclass();
+            }
+        }
+        return false;
     }
 
     private static void inheritIO(final InputStream src, final PrintStream dest) {
@@ -303,59 +745,264 @@ public class Launcher {
     public NPEOutput runCommandLine(Selector selector, List<String> methodTests) {
 
         CallChecker.enable();
-        CallChecker.strategySelector = selector;
+        CallChecker.setSelector(selector);
 
-        NPEOutput output = new NPEOutput();
+        if (inMemoryCompiler != null) {
+            // the forked JVMs load the instrumented classes from the disk
+            inMemoryCompiler.writeClasses(new File(binOutput));
+        }
+
+        // the forked JVMs access to the selector with the socket protocol or with RMI
+        boolean useSocket = !"rmi".equals(Config.CONFIG.getServerTransport());
+        DecisionServer decisionServer = null;
+        SocketDecisionServer socketDecisionServer = null;
+        String socketPort = null;
+        if (useSocket) {
+            socketDecisionServer = new SocketDecisionServer(selector);
+            socketPort = socketDecisionServer.startServer() + "";
+        } else {
+            decisionServer = new DecisionServer(selector);
+            decisionServer.startServer();
+        }
 
+        int parallelism = Config.CONFIG.getWorkerParallelism();
+        if (!useSocket && parallelism > 1) {
+            // the RMI server shares a single current lapse between the JVMs
+            logger.warn("Parallel workers require the socket transport, the tests run sequentially");
+            parallelism = 1;
+        }
+
+        // the executions of a same test run one after the other: the selectors
+        // explore the decision sequences of a test sequentially
+        Map<String, List<String[]>> testGroups = new LinkedHashMap<>();
         for (int i = 0; i < methodTests.size(); i++) {
-            String method = methodTests.get(i);
-            String[] split = method.split("#");
-            method = split[1];
-            String className = split[0];
-            String separator = System.getProperty("file.separator");
-            String path = System.getProperty("java.home")
-                    + separator + "bin" + separator + "java";
-            ProcessBuilder processBuilder =
-                    new ProcessBuilder(path, "-cp",
-                            classpath,
-                            ExecutionClient.class.getName(),
-                            className,
-                            method,
-                            Config.CONFIG.getRandomSeed() + "");
-            try {
-                // run the new JVM
-                final Process process = processBuilder.start();
-                // print the output to the current console
-                inheritIO(process.getInputStream(), System.out);
-                inheritIO(process.getErrorStream(), System.err);
-                // wait the end of the process
-                process.waitFor();
-                // adds all lapse
-                List<Lapse> lapses = new ArrayList<>();
-                for (Lapse lapse : selector.getLapses()) {
-                    if (lapse.getOracle() instanceof ExceptionOracle) {
-                        // removes lapse that end because there is not more available decision (Full exploration strategy)
-                        if (!lapse.getOracle().isValid()
-                                && lapse.getOracle().getError().contains("No more available decision")) {
-                            continue;
+            String[] split = methodTests.get(i).split("#");
+            String key = split[0] + "#" + split[1];
+            if (!testGroups.containsKey(key)) {
+                testGroups.put(key, new ArrayList<String[]>());
+            }
+            testGroups.get(key).add(split);
+        }
+
+        // the warm workers run several lapses in the same JVM
+        final BlockingQueue<WorkerProcess> warmWorkers = new LinkedBlockingQueue<>();
+        final boolean useWarmWorkers = Config.CONFIG.getWorkerLapses() > 1;
+        if (useWarmWorkers) {
+            for (int i = 0; i < parallelism; i++) {
+                warmWorkers.add(new WorkerProcess(getWorkerCommand(socketPort)));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<?>> workers = new ArrayList<>();
+        final String port = socketPort;
+        final Selector lapseSelector = selector;
+        for (final List<String[]> tests : testGroups.values()) {
+            workers.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (!useWarmWorkers) {
+                        for (String[] test : tests) {
+                            if (budget.isExhausted()) {
+                                return;
+                            }
+                            String key = test[0] + "#" + test[1];
+                            long start = System.currentTimeMillis();
+                            if (runTestProcess(test[0], test[1], port, budget.getLapseTimeout(key))) {
+                                budget.addDuration(key, System.currentTimeMillis() - start);
+                            }
+                            addLapsesToBudget(lapseSelector);
                         }
+                        return;
+                    }
+                    // there is one worker per thread of the pool
+                    WorkerProcess worker = warmWorkers.poll();
+                    try {
+                        for (String[] test : tests) {
+                            if (budget.isExhausted()) {
+                                return;
+                            }
+                            String key = test[0] + "#" + test[1];
+                            long start = System.currentTimeMillis();
+                            if (worker.runTest(test[0], test[1], budget.getLapseTimeout(key))) {
+                                budget.addDuration(key, System.currentTimeMillis() - start);
+                            }
+                            addLapsesToBudget(lapseSelector);
+                        }
+                    } finally {
+                        warmWorkers.add(worker);
                     }
-                    lapses.add(lapse);
                 }
-                output.addAll(lapses);
-                selector.getLapses().clear();
-                // destroy the process
-                process.destroy();
-            } catch (IOException e) {
-                e.printStackTrace();
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
             } catch (InterruptedException e) {
                 e.printStackTrace();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
             }
         }
+        executor.shutdown();
+        for (WorkerProcess worker : warmWorkers) {
+            worker.close();
+        }
+
+        if (useSocket) {
+            socketDecisionServer.stopServer();
+        } else {
+            decisionServer.stopServer();
+        }
+
+        NPEOutput output = new NPEOutput();
+        // the socket server updates the selector under its lock
+        synchronized (selector) {
+            mergeLapses(selector, testGroups.keySet(), output);
+        }
         Collections.sort(output);
         return output;
     }
 
+    /**
+     * Counts the patches of the lapses ended in the forked JVMs,
+     * a patch is counted once whatever the number of its lapses
+     */
+    private void addLapsesToBudget(Selector selector) {
+        // the socket server updates the selector under its lock
+        synchronized (selector) {
+            try {
+                for (Lapse lapse : selector.getLapses()) {
+                    budget.addLapse(lapse);
+                }
+            } catch (RemoteException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void mergeLapses(Selector selector, Set<String> tests, NPEOutput output) {
+        try {
+            // adds the lapses in the order of the tests whatever the order of the workers
+            Map<String, List<Lapse>> lapsesByTest = new HashMap<>();
+            for (Lapse lapse : selector.getLapses()) {
+                if (lapse.getOracle() instanceof ExceptionOracle) {
+                    // removes lapse that end because there is not more available decision (Full exploration strategy)
+                    if (!lapse.getOracle().isValid()
+                            && lapse.getOracle().getError().contains("No more available decision")) {
+                        continue;
+                    }
+                }
+                String key = lapse.getTestClassName() + "#" + lapse.getTestName();
+                if (!lapsesByTest.containsKey(key)) {
+                    lapsesByTest.put(key, new ArrayList<Lapse>());
+                }
+                lapsesByTest.get(key).add(lapse);
+            }
+            for (String key : tests) {
+                List<Lapse> lapses = lapsesByTest.remove(key);
+                if (lapses != null) {
+                    output.addAll(lapses);
+                }
+            }
+            for (List<Lapse> lapses : lapsesByTest.values()) {
+                output.addAll(lapses);
+            }
+            selector.getLapses().clear();
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the command of a warm worker: npefix is loaded by the JVM,
+     * the project by the worker for each lapse
+     */
+    private List<String> getWorkerCommand(String socketPort) {
+        String separator = System.getProperty("file.separator");
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + separator + "bin" + separator + "java");
+        command.addAll(getBytecodeOptions());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ExecutionWorker.class.getName());
+        command.add(Config.CONFIG.getRandomSeed() + "");
+        command.add(socketPort == null ? "-1" : socketPort);
+        command.add(projectClasspath);
+        command.add(Config.CONFIG.getWorkerLapses() + "");
+        return command;
+    }
+
+    /**
+     * Runs a test in a new JVM and waits the end of the JVM,
+     * the JVM is stopped after the timeout
+     *
+     * @param timeout in ms
+     * @return true if the JVM ended before the timeout
+     */
+    private boolean runTestProcess(String className, String method, String socketPort, long timeout) {
+        String separator = System.getProperty("file.separator");
+        String path = System.getProperty("java.home")
+                + separator + "bin" + separator + "java";
+        List<String> command = new ArrayList<>();
+        command.add(path);
+        command.addAll(getBytecodeOptions());
+        command.add("-cp");
+        command.add(classpath);
+        command.add(ExecutionClient.class.getName());
+        command.add(className);
+        command.add(method);
+        command.add(Config.CONFIG.getRandomSeed() + "");
+        if (socketPort != null) {
+            command.add(socketPort);
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        try {
+            // run the new JVM
+            final Process process = processBuilder.start();
+            // print the output to the current console
+            inheritIO(process.getInputStream(), System.out);
+            inheritIO(process.getErrorStream(), System.err);
+            // wait the end of the process
+            boolean isEnded = waitFor(process, timeout);
+            // destroy the process
+            process.destroy();
+            return isEnded;
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Waits the end of a process at most timeout ms
+     *
+     * @return true if the process ended before the timeout
+     */
+    private static boolean waitFor(final Process process, long timeout) throws InterruptedException {
+        final CountDownLatch end = new CountDownLatch(1);
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    process.waitFor();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                end.countDown();
+            }
+        });
+        waiter.setDaemon(true);
+        waiter.start();
+        try {
+            return end.await(timeout, TimeUnit.MILLISECONDS);
+        } finally {
+            waiter.interrupt();
+        }
+    }
+
 	/**
      * Returns all test methods of the spooned project
      * @return a list of test methods
@@ -367,7 +1014,18 @@ public class Launcher {
 
         CallChecker.currentClassLoader = urlClassLoader;
 
-        return getTests(spoon, urlClassLoader);
+        if (testIndex == null) {
+            testIndex = new TestIndex(new File(binOutput + "-tests.properties"));
+        }
+        // only the changed class files are loaded again
+        List<String> methodTests = new ArrayList<>();
+        for (String test : testIndex.getTests(urlClassLoader)) {
+            String className = test.substring(0, test.indexOf('#'));
+            if (!className.endsWith("Suite") && isValidTest(spoon, null, className)) {
+                methodTests.add(test);
+            }
+        }
+        return methodTests;
     }
 
     /**
@@ -395,37 +1053,47 @@ public class Launcher {
         List<String> methodTests = new ArrayList<>();
         for (int i = 0; i < tests.length; i++) {
             Class test = tests[i];
-            Method[] methods = test.getDeclaredMethods();
-            for (int j = 0; j < methods.length; j++) {
-                Method method = methods[j];
-                if(method.getName().equals("setUp")) {
-                    continue;
-                }
-                if(method.getName().equals("tearDown")) {
-                    continue;
-                }
+            for (String method : getTestMethodNames(test)) {
+                methodTests.add(test.getCanonicalName() + "#" + method);
+            }
+        }
+        return methodTests;
+    }
 
-                if(method.getReturnType().equals(void.class)
-                        && method.getParameterTypes().length == 0) {
-                    if(!method.isAnnotationPresent(After.class)
-                            && !method.isAnnotationPresent(AfterClass.class)
-                            && !method.isAnnotationPresent(Before.class)
-                            && !method.isAnnotationPresent(BeforeClass.class)
-                            && !method.isAnnotationPresent(Override.class)) {
-                        methodTests.add(test.getCanonicalName() + "#" + method.getName());
-                    }
+    /**
+     * Returns the names of the test methods of a test class
+     */
+    static List<String> getTestMethodNames(Class<?> test) {
+        List<String> methodNames = new ArrayList<>();
+        Method[] methods = test.getDeclaredMethods();
+        for (int j = 0; j < methods.length; j++) {
+            Method method = methods[j];
+            if(method.getName().equals("setUp")) {
+                continue;
+            }
+            if(method.getName().equals("tearDown")) {
+                continue;
+            }
+
+            if(method.getReturnType().equals(void.class)
+                    && method.getParameterTypes().length == 0) {
+                if(!method.isAnnotationPresent(After.class)
+                        && !method.isAnnotationPresent(AfterClass.class)
+                        && !method.isAnnotationPresent(Before.class)
+                        && !method.isAnnotationPresent(BeforeClass.class)
+                        && !method.isAnnotationPresent(Override.class)) {
+                    methodNames.add(method.getName());
                 }
             }
         }
-        return methodTests;
+        return methodNames;
     }
 
     public NPEOutput runStrategy(List<String> tests, Strategy...strategies) {
         NPEOutput output = new NPEOutput();
 
         Selector selector = new DomSelector();
-        DecisionServer decisionServer = new DecisionServer(selector);
-        decisionServer.startServer();
+        CallChecker.setSelector(selector);
 
         for (int i = 0; i < strategies.length; i++) {
             Strategy strategy = strategies[i];
@@ -462,6 +1130,10 @@ public class Launcher {
     }
 
     public static URLClassLoader getUrlClassLoader(String[] sourceClasspath) {
+        return new URLClassLoader(getURLs(sourceClasspath), Thread.currentThread().getContextClassLoader());
+    }
+
+    private static URL[] getURLs(String[] sourceClasspath) {
         ArrayList<URL> uRLClassPath = new ArrayList<>();
         for (int i = 0; i < sourceClasspath.length; i++) {
             String s = sourceClasspath[i];
@@ -471,13 +1143,17 @@ public class Launcher {
                 continue;
             }
         }
-        return new URLClassLoader(uRLClassPath.toArray(new URL[]{}), Thread.currentThread().getContextClassLoader());
+        return uRLClassPath.toArray(new URL[]{});
     }
 
     private static boolean isValidTest(spoon.Launcher spoon, Class<?> aClass, String testName) {
         return spoon.getFactory().Class().get(testName) != null;
     }
 
+    public ExplorationBudget getBudget() {
+        return budget;
+    }
+
     public spoon.Launcher getSpoon() {
         return spoon;
     }
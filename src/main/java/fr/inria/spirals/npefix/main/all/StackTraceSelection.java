@@ -0,0 +1,208 @@
+package fr.inria.spirals.npefix.main.all;
+
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.visitor.filter.TypeFilter;
+import utils.sacha.runner.main.TestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selects the methods to instrument from the stack traces of the NPEs:
+ * the methods and constructors of the traces, plus their callers and
+ * callees up to a call-graph radius.
+ */
+public class StackTraceSelection {
+
+	private final int radius;
+	private final List<StackTraceElement> frames = new ArrayList<>();
+
+	public StackTraceSelection(int radius) {
+		this.radius = radius;
+	}
+
+	/**
+	 * Runs the tests with the classes of the class loader (not instrumented)
+	 * and keeps the stack traces of the NPEs that make them fail
+	 */
+	public static StackTraceSelection fromFailingTests(ClassLoader classLoader, List<String> tests, int radius) {
+		StackTraceSelection selection = new StackTraceSelection(radius);
+		TestRunner testRunner = new TestRunner();
+		for (String test : tests) {
+			String[] split = test.split("#");
+			Request request;
+			try {
+				request = Request.method(classLoader.loadClass(split[0]), split[1]);
+			} catch (ClassNotFoundException e) {
+				e.printStackTrace();
+				continue;
+			}
+			Result result = testRunner.run(request);
+			for (Failure failure : result.getFailures()) {
+				Throwable exception = failure.getException();
+				while (exception != null) {
+					if (exception instanceof NullPointerException) {
+						selection.addStackTrace(exception.getStackTrace());
+						break;
+					}
+					exception = exception.getCause();
+				}
+			}
+		}
+		return selection;
+	}
+
+	public void addStackTrace(StackTraceElement[] stackTrace) {
+		Collections.addAll(frames, stackTrace);
+	}
+
+	public boolean isEmpty() {
+		return frames.isEmpty();
+	}
+
+	/**
+	 * Returns the methods and constructors of the model to instrument,
+	 * without the ones nested in another selected executable (the methods of
+	 * the anonymous and local classes) which are processed with it
+	 */
+	public Set<CtExecutable<?>> select(Factory factory) {
+		Set<CtExecutable<?>> selected = new HashSet<>();
+		for (StackTraceElement frame : frames) {
+			CtExecutable<?> executable = getExecutable(factory, frame);
+			if (executable != null) {
+				selected.add(executable);
+			}
+		}
+		Map<CtExecutable<?>, Set<CtExecutable<?>>> callers = null;
+		for (int i = 0; i < radius; i++) {
+			if (callers == null) {
+				callers = getCallers(factory);
+			}
+			Set<CtExecutable<?>> neighbours = new HashSet<>();
+			for (CtExecutable<?> executable : selected) {
+				neighbours.addAll(getCallees(executable));
+				if (callers.containsKey(executable)) {
+					neighbours.addAll(callers.get(executable));
+				}
+			}
+			if (!selected.addAll(neighbours)) {
+				break;
+			}
+		}
+		Set<CtExecutable<?>> output = new HashSet<>();
+		for (CtExecutable<?> executable : selected) {
+			if (!hasSelectedParent(executable, selected)) {
+				output.add(executable);
+			}
+		}
+		return output;
+	}
+
+	private boolean hasSelectedParent(CtExecutable<?> executable, Set<CtExecutable<?>> selected) {
+		CtExecutable<?> parent = executable.getParent(CtExecutable.class);
+		while (parent != null) {
+			if (selected.contains(parent)) {
+				return true;
+			}
+			parent = parent.getParent(CtExecutable.class);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the innermost method or constructor of the model that contains the line of the frame
+	 */
+	private CtExecutable<?> getExecutable(Factory factory, StackTraceElement frame) {
+		String className = frame.getClassName();
+		int index = className.indexOf('$');
+		// the anonymous classes and the lambdas are in the lines of their top-level type
+		CtType<?> type = factory.Type().get(index == -1 ? className : className.substring(0, index));
+		if (type == null || frame.getLineNumber() < 0) {
+			return null;
+		}
+		CtExecutable<?> output = null;
+		int outputSize = Integer.MAX_VALUE;
+		for (CtExecutable<?> executable : type.getElements(new TypeFilter<>(CtExecutable.class))) {
+			if (!isInstrumentable(executable) || executable.getPosition() == null) {
+				continue;
+			}
+			int line = executable.getPosition().getLine();
+			int endLine = executable.getPosition().getEndLine();
+			if (line <= frame.getLineNumber() && frame.getLineNumber() <= endLine
+					&& endLine - line < outputSize) {
+				output = executable;
+				outputSize = endLine - line;
+			}
+		}
+		return output;
+	}
+
+	private Set<CtExecutable<?>> getCallees(CtExecutable<?> executable) {
+		Set<CtExecutable<?>> callees = new HashSet<>();
+		for (CtAbstractInvocation<?> invocation : executable.getElements(new TypeFilter<>(CtAbstractInvocation.class))) {
+			CtExecutable<?> callee = invocation.getExecutable().getExecutableDeclaration();
+			if (callee != null && isInstrumentable(callee)) {
+				callees.add(callee);
+			}
+		}
+		return callees;
+	}
+
+	private Map<CtExecutable<?>, Set<CtExecutable<?>>> getCallers(Factory factory) {
+		Map<CtExecutable<?>, Set<CtExecutable<?>>> callers = new HashMap<>();
+		for (CtType<?> type : factory.Type().getAll()) {
+			for (CtAbstractInvocation<?> invocation : type.getElements(new TypeFilter<>(CtAbstractInvocation.class))) {
+				CtExecutable<?> caller = getInstrumentableParent(invocation);
+				if (caller == null) {
+					continue;
+				}
+				CtExecutable<?> callee = invocation.getExecutable().getExecutableDeclaration();
+				if (callee == null) {
+					continue;
+				}
+				if (!callers.containsKey(callee)) {
+					callers.put(callee, new HashSet<CtExecutable<?>>());
+				}
+				callers.get(callee).add(caller);
+			}
+		}
+		return callers;
+	}
+
+	private CtExecutable<?> getInstrumentableParent(CtElement element) {
+		CtExecutable<?> parent = element.getParent(CtExecutable.class);
+		while (parent != null && !isInstrumentable(parent)) {
+			parent = parent.getParent(CtExecutable.class);
+		}
+		return parent;
+	}
+
+	private boolean isInstrumentable(CtExecutable<?> executable) {
+		return (executable instanceof CtMethod || executable instanceof CtConstructor)
+				&& executable.getBody() != null;
+	}
+
+	@Override
+	public String toString() {
+		List<String> output = new ArrayList<>();
+		for (StackTraceElement frame : frames) {
+			output.add(frame.getClassName() + ":" + frame.getLineNumber());
+		}
+		Collections.sort(output);
+		return radius + " " + output;
+	}
+}
@@ -0,0 +1,171 @@
+package fr.inria.spirals.npefix.main.all;
+
+import utils.sacha.finder.filters.impl.TestFilter;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Persistent index of the test methods of the class files of the
+ * directories of a classpath.
+ *
+ * Each class file is indexed with its timestamp and its size: a class is
+ * loaded and reflected again only when its class file changed. The new
+ * classes are loaded and filtered in parallel.
+ */
+public class TestIndex {
+
+	private final File file;
+	// path of the class file -> timestamp:size|method,method,...
+	private final Properties index = new Properties();
+	private final TestFilter testFilter = new TestFilter();
+
+	public TestIndex(File file) {
+		this.file = file;
+		if (file.exists()) {
+			try (FileReader reader = new FileReader(file)) {
+				index.load(reader);
+			} catch (IOException e) {
+				index.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the test methods (class#method) of the top-level classes of the
+	 * directories of the class loader, ordered by class name
+	 */
+	public List<String> getTests(final URLClassLoader classLoader) {
+		// the first class file of a name hides the next ones
+		Map<String, File> classFiles = new TreeMap<>();
+		for (URL url : classLoader.getURLs()) {
+			File directory = new File(url.getPath());
+			if (directory.isDirectory()) {
+				listClassFiles(directory, "", classFiles);
+			}
+		}
+
+		Properties newIndex = new Properties();
+		Map<String, Future<List<String>>> newClasses = new LinkedHashMap<>();
+		ExecutorService executor = null;
+		for (Map.Entry<String, File> entry : classFiles.entrySet()) {
+			String path = entry.getValue().getAbsolutePath();
+			String value = index.getProperty(path);
+			if (value != null && value.startsWith(getStamp(entry.getValue()) + "|")) {
+				newIndex.setProperty(path, value);
+				continue;
+			}
+			if (executor == null) {
+				executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+			}
+			final String className = entry.getKey();
+			newClasses.put(className, executor.submit(new Callable<List<String>>() {
+				@Override
+				public List<String> call() {
+					return getTestMethods(classLoader, className);
+				}
+			}));
+		}
+		if (executor != null) {
+			for (Map.Entry<String, Future<List<String>>> entry : newClasses.entrySet()) {
+				File classFile = classFiles.get(entry.getKey());
+				StringBuilder value = new StringBuilder(getStamp(classFile)).append('|');
+				try {
+					List<String> methods = entry.getValue().get();
+					for (int i = 0; i < methods.size(); i++) {
+						value.append(i == 0 ? "" : ",").append(methods.get(i));
+					}
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e);
+				}
+				newIndex.setProperty(classFile.getAbsolutePath(), value.toString());
+			}
+			executor.shutdown();
+			save(newIndex);
+		} else if (newIndex.size() != index.size()) {
+			// class files were removed
+			save(newIndex);
+		}
+
+		List<String> tests = new ArrayList<>();
+		for (Map.Entry<String, File> entry : classFiles.entrySet()) {
+			String value = newIndex.getProperty(entry.getValue().getAbsolutePath());
+			String methods = value.substring(value.indexOf('|') + 1);
+			if (methods.isEmpty()) {
+				continue;
+			}
+			for (String method : methods.split(",")) {
+				tests.add(entry.getKey() + "#" + method);
+			}
+		}
+		return tests;
+	}
+
+	private List<String> getTestMethods(ClassLoader classLoader, String className) {
+		Class<?> clazz;
+		try {
+			clazz = classLoader.loadClass(className);
+			if (clazz.isLocalClass() || clazz.isAnonymousClass() || !testFilter.acceptClass(clazz)) {
+				return Collections.emptyList();
+			}
+			return Launcher.getTestMethodNames(clazz);
+		} catch (ClassNotFoundException e) {
+			return Collections.emptyList();
+		} catch (NoClassDefFoundError e) {
+			// ignore not instantiable classes
+			return Collections.emptyList();
+		}
+	}
+
+	private void listClassFiles(File directory, String packageName, Map<String, File> classFiles) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				listClassFiles(file, packageName + name + ".", classFiles);
+			} else if (name.endsWith(".class") && !name.contains("$")) {
+				String className = packageName + name.substring(0, name.length() - ".class".length());
+				if (!classFiles.containsKey(className)) {
+					classFiles.put(className, file);
+				}
+			}
+		}
+	}
+
+	private String getStamp(File classFile) {
+		return classFile.lastModified() + ":" + classFile.length();
+	}
+
+	private void save(Properties newIndex) {
+		index.clear();
+		index.putAll(newIndex);
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		try (FileWriter writer = new FileWriter(file)) {
+			newIndex.store(writer, "npefix test index");
+		} catch (IOException e) {
+			// the index is only an optimization
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package fr.inria.spirals.npefix.main.all;
+
+import fr.inria.spirals.npefix.resi.RandomGenerator;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selects the tests of the next lapses from the null dereferences of the
+ * tests in their previous lapses.
+ *
+ * The decisions only change the execution where null is dereferenced: a
+ * test that never dereferenced null at an instrumented location behaves the
+ * same whatever the decisions, and only runs when it is part of the
+ * regression sample. The tests that never ran and the tests that
+ * dereferenced null, with or without taking a decision, are always selected.
+ */
+public class TestSelection {
+
+	// -1 selects all the tests
+	private final int regressionSample;
+	// tests (class#method) that ran at least once
+	private final Set<String> ranTests = new HashSet<>();
+	// tests (class#method) that dereferenced null in one of their lapses
+	private final Set<String> nullTests = new HashSet<>();
+
+	public TestSelection(int regressionSample) {
+		this.regressionSample = regressionSample;
+	}
+
+	/**
+	 * Records a lapse of a test
+	 *
+	 * @param hasDereferencedNull whether the lapse dereferenced null, see {@link fr.inria.spirals.npefix.resi.CallChecker#flushDereferencedNull()}
+	 */
+	public synchronized void record(String test, Lapse lapse, boolean hasDereferencedNull) {
+		ranTests.add(test);
+		if (hasDereferencedNull || !lapse.getDecisions().isEmpty()) {
+			nullTests.add(test);
+		}
+	}
+
+	/**
+	 * Returns the tests that dereferenced null, the tests that never ran
+	 * and a random sample of the other tests, in the order of the tests
+	 */
+	public synchronized List<String> select(List<String> tests) {
+		if (regressionSample < 0) {
+			return tests;
+		}
+		Set<String> selected = new HashSet<>();
+		List<String> others = new ArrayList<>();
+		for (String test : tests) {
+			if (!ranTests.contains(test) || nullTests.contains(test)) {
+				selected.add(test);
+			} else {
+				others.add(test);
+			}
+		}
+		Collections.shuffle(others, RandomGenerator.getGenerator());
+		selected.addAll(others.subList(0, Math.min(regressionSample, others.size())));
+
+		List<String> output = new ArrayList<>();
+		for (String test : tests) {
+			if (selected.contains(test)) {
+				output.add(test);
+			}
+		}
+		return output;
+	}
+}
@@ -0,0 +1,131 @@
+package fr.inria.spirals.npefix.main.all;
+
+import fr.inria.spirals.npefix.main.ExecutionWorker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launcher side of an {@link ExecutionWorker}: sends the tests to the
+ * worker JVM and waits the end of their lapse.
+ * A new JVM is started when the previous one stopped or did not answer.
+ */
+public class WorkerProcess {
+
+    // in seconds, the worker exits at the end of its input
+    private static final int EXIT_TIMEOUT = 60;
+
+    private final List<String> command;
+    private Process process;
+    private Writer input;
+    // end of the lapses of the current JVM: true when the JVM stops
+    private BlockingQueue<Boolean> lapseEnds;
+
+    public WorkerProcess(List<String> command) {
+        this.command = command;
+    }
+
+    /**
+     * Runs a lapse of a test in the worker JVM,
+     * the JVM is stopped when the lapse does not end before the timeout
+     *
+     * @param timeout in ms
+     * @return true if the lapse ended before the timeout
+     */
+    public boolean runTest(String className, String method, long timeout) {
+        if (process != null && lapseEnds.peek() != null) {
+            // the JVM stopped since the last lapse
+            destroy();
+        }
+        try {
+            if (process == null) {
+                start();
+            }
+            input.write(className + "#" + method + System.getProperty("line.separator"));
+            input.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            destroy();
+            return false;
+        }
+        try {
+            Boolean isStopped = lapseEnds.poll(timeout, TimeUnit.MILLISECONDS);
+            if (isStopped == null) {
+                destroy();
+                return false;
+            }
+            if (isStopped) {
+                destroy();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            destroy();
+            return false;
+        }
+    }
+
+    private void start() throws IOException {
+        process = new ProcessBuilder(command).start();
+        input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+        lapseEnds = new LinkedBlockingQueue<>();
+        readOutput(process.getInputStream(), System.out, lapseEnds);
+        readOutput(process.getErrorStream(), System.err, null);
+    }
+
+    /**
+     * Prints the output of the worker to the current console
+     * and notifies the end of the lapses
+     */
+    private static void readOutput(final InputStream src, final PrintStream dest, final BlockingQueue<Boolean> lapseEnds) {
+        new Thread(new Runnable() {
+            public void run() {
+                Scanner sc = new Scanner(src);
+                while (sc.hasNextLine()) {
+                    String line = sc.nextLine();
+                    if (lapseEnds != null && line.startsWith(ExecutionWorker.LAPSE_END)) {
+                        lapseEnds.add(line.endsWith(ExecutionWorker.EXIT));
+                    } else {
+                        dest.println(line);
+                    }
+                }
+                if (lapseEnds != null) {
+                    lapseEnds.add(true);
+                }
+            }
+        }).start();
+    }
+
+    /**
+     * Stops the worker JVM, the worker exits at the end of its input
+     */
+    public void close() {
+        if (process == null) {
+            return;
+        }
+        try {
+            input.close();
+            lapseEnds.poll(EXIT_TIMEOUT, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        destroy();
+    }
+
+    private void destroy() {
+        if (process != null) {
+            process.destroy();
+            process = null;
+        }
+    }
+}
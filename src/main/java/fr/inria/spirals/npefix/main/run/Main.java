@@ -4,8 +4,8 @@ import com.martiansoftware.jsap.FlaggedOption;
 import com.martiansoftware.jsap.JSAP;
 import com.martiansoftware.jsap.JSAPException;
 import com.martiansoftware.jsap.JSAPResult;
-import fr.inria.spirals.npefix.main.DecisionServer;
 import fr.inria.spirals.npefix.main.all.DefaultRepairStrategy;
+import fr.inria.spirals.npefix.main.all.ExplorationBudget;
 import fr.inria.spirals.npefix.main.all.Launcher;
 import fr.inria.spirals.npefix.main.all.RepairStrategy;
 import fr.inria.spirals.npefix.resi.CallChecker;
@@ -37,6 +37,7 @@ public class Main {
 	private int complianceLevel = 7;
 	private RepairStrategy repairStrategy;
 	private String[] tests;
+	private int selectiveRadius = -1;
 	private int nbIteration;
 	private String repairStrategyClassname = "fr.inria.spirals.npefix.main.all.DefaultRepairStrategy";
 
@@ -66,9 +67,12 @@ public class Main {
 	private NPEOutput run() throws Exception {
 		repairStrategy = getRepairStrategy();
 		Launcher npefix = new Launcher(sources.toArray(new String[]{}), workingDirectory + "/npefix-src", workingDirectory + "/npefix-bin", classpath, complianceLevel, repairStrategy);
-		if (!new File(workingDirectory + "/npefix-bin").exists()) {
-			npefix.instrument();
+		if (selectiveRadius >= 0) {
+			// only the methods around the stack traces of the NPEs are instrumented
+			npefix.selectFromFailingTests(npefix.getTests(tests), selectiveRadius);
 		}
+		// only the compilation units changed since the last run are instrumented
+		npefix.instrument();
 
 		Date initDate = new Date();
 
@@ -99,13 +103,15 @@ public class Main {
 
 	private NPEOutput multipleRuns(Launcher  npefix, List<String> npeTests, Selector selector) {
 		List<String> testMethods = npefix.getTests(npeTests.toArray(new String[0]));
-		DecisionServer decisionServer = new DecisionServer(selector);
-		decisionServer.startServer();
+		CallChecker.setSelector(selector);
 
 		NPEOutput output = new NPEOutput();
 
+		// stops at the deadline or when enough patches are found
+		ExplorationBudget budget = npefix.getBudget();
+		budget.start();
 		int countError = 0;
-		while (output.size() < nbIteration) {
+		while (output.size() < nbIteration && !budget.isExhausted()) {
 			if(countError > 5) {
 				break;
 			}
@@ -193,6 +199,7 @@ public class Main {
 		this.nbIteration = jsapConfig.getInt("iteration");
 		this.complianceLevel = jsapConfig.getInt("complianceLevel");
 		this.repairStrategyClassname = jsapConfig.getString("repairStrategy");
+		this.selectiveRadius = jsapConfig.getInt("selective");
 
 		return true;
 	}
@@ -264,5 +271,14 @@ public class Main {
 		repairStrategy.setDefault(DefaultRepairStrategy.class.getCanonicalName());
 		repairStrategy.setHelp("Define the repair strategy used by NPEFix.");
 		jsap.registerParameter(repairStrategy);
+
+		FlaggedOption selectiveOpt = new FlaggedOption("selective");
+		selectiveOpt.setRequired(false);
+		selectiveOpt.setAllowMultipleDeclarations(false);
+		selectiveOpt.setLongFlag("selective");
+		selectiveOpt.setStringParser(JSAP.INTEGER_PARSER);
+		selectiveOpt.setDefault("-1");
+		selectiveOpt.setHelp("Instrument only the methods of the stack traces of the NPEs of the tests and the methods at this call-graph distance (-1 instruments the whole project).");
+		jsap.registerParameter(selectiveOpt);
 	}
 }
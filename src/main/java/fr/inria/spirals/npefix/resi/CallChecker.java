@@ -1,12 +1,17 @@
 package fr.inria.spirals.npefix.resi;
 
 import fr.inria.spirals.npefix.config.Config;
+import fr.inria.spirals.npefix.resi.context.ApplicationCounter;
 import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.FrameStack;
 import fr.inria.spirals.npefix.resi.context.Lapse;
 import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.context.LocationTable;
 import fr.inria.spirals.npefix.resi.context.MethodContext;
+import fr.inria.spirals.npefix.resi.context.SearchSpaceCache;
 import fr.inria.spirals.npefix.resi.context.instance.Instance;
 import fr.inria.spirals.npefix.resi.exception.ForceReturn;
+import fr.inria.spirals.npefix.resi.exception.LapseCancelled;
 import fr.inria.spirals.npefix.resi.exception.NoMoreDecision;
 import fr.inria.spirals.npefix.resi.selector.DomSelector;
 import fr.inria.spirals.npefix.resi.selector.GreedySelector;
@@ -22,18 +27,59 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @SuppressWarnings("all")
 public class CallChecker {
 
-	public static Selector strategySelector;
+	public static volatile Selector strategySelector;
 
-	static {
+	// system property of the forked JVMs that run the classes instrumented in the bytecode
+	public static final String REPLACING_RECEIVER_ONLY = "npefix.replacingReceiverOnly";
+	// the bytecode instrumentation only inserts the isCalled hooks, without method context
+	private static volatile boolean isReplacingReceiverOnly = Boolean.getBoolean(REPLACING_RECEIVER_ONLY);
+
+	/**
+	 * Binds the selector of the current JVM (in-process mode):
+	 * the decisions are taken directly by the selector, without registry, stub nor serialization.
+	 */
+	public static void setSelector(Selector selector) {
+		strategySelector = selector;
+	}
+
+	/**
+	 * Restricts the strategies to the ones that replace the receiver of the
+	 * dereference (isCalled), the classes instrumented in the bytecode have
+	 * neither the hooks that skip the dereference nor the method contexts
+	 * that handle the forced returns.
+	 */
+	public static void setReplacingReceiverOnly(boolean isReplacingReceiverOnly) {
+		CallChecker.isReplacingReceiverOnly = isReplacingReceiverOnly;
+	}
+
+	/**
+	 * Returns the selector, when no selector is bound (forked mode)
+	 * the selector is looked up in the RMI registry of the launcher.
+	 */
+	public static Selector getSelector() {
+		Selector selector = strategySelector;
+		if (selector == null) {
+			selector = lookupSelector();
+		}
+		return selector;
+	}
+
+	private synchronized static Selector lookupSelector() {
+		if (strategySelector != null) {
+			return strategySelector;
+		}
 		try {
 			System.out.print(String.format("RMI %s (Host: %s, Port: %d): ",
 					Config.CONFIG.getServerName(),
@@ -48,31 +94,94 @@ public class CallChecker {
 			strategySelector = new GreedySelector();
 			System.out.println("KO");
 		}
+		return strategySelector;
 	}
 
-	private static Stack<MethodContext> stack = new Stack<>();
+	/**
+	 * Runtime state of a thread: its method stack and its reentrancy guard
+	 */
+	private static class ThreadState {
+		private final FrameStack stack = new FrameStack();
+		private boolean isEnable = true;
+		private Lapse lastLapse;
+	}
+
+	private static volatile ThreadLocal<ThreadState> threadStates = newThreadStates();
+
+	private static volatile Lapse lastLapse;
 
-	private static boolean isEnable = true;
-	private static Strategy strategyBackup;
-	private static Selector selectorBackup;
+	// threads of the lapses abandoned after their timeout, they end at their next hook
+	private static final Set<Thread> cancelledThreads = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Thread, Boolean>()));
+	private static volatile boolean hasCancelledThreads = false;
 
-	private static Lapse lastLapse;
+	// whether a lapse dereferenced null since the last flushDereferencedNull
+	private static volatile boolean hasDereferencedNull = false;
 
 	public static Location currentLocation;
 	public static ClassLoader currentClassLoader = CallChecker.class.getClassLoader();
 
+	private static ThreadLocal<ThreadState> newThreadStates() {
+		return new ThreadLocal<ThreadState>() {
+			@Override
+			protected ThreadState initialValue() {
+				return new ThreadState();
+			}
+		};
+	}
+
+	private static ThreadState getThreadState() {
+		return threadStates.get();
+	}
+
+	/**
+	 * Marks the thread of a lapse that did not end before its timeout: the
+	 * hooks throw a {@link LapseCancelled} in this thread instead of
+	 * executing the lapse concurrently with the next ones
+	 */
+	public static void cancel(Thread thread) {
+		cancelledThreads.add(thread);
+		hasCancelledThreads = true;
+	}
+
+	/**
+	 * Forgets a cancelled thread, when its lapse ended
+	 */
+	public static void release(Thread thread) {
+		cancelledThreads.remove(thread);
+		hasCancelledThreads = !cancelledThreads.isEmpty();
+	}
+
+	/**
+	 * Returns whether a lapse dereferenced null at an instrumented location
+	 * since the previous call, with or without taking a decision
+	 */
+	public static boolean flushDereferencedNull() {
+		boolean output = hasDereferencedNull;
+		hasDereferencedNull = false;
+		return output;
+	}
+
+	private static void checkCancelled() {
+		if (hasCancelledThreads && cancelledThreads.contains(Thread.currentThread())) {
+			throw new LapseCancelled();
+		}
+	}
+
 	public static void clear() {
-		strategyBackup = null;
-		selectorBackup = null;
-		stack = new Stack<>();
-		isEnable = true;
+		// the state of all threads is dropped with the previous thread local
+		threadStates = newThreadStates();
+		lastLapse = null;
 		decisions.clear();
+		applications.clear();
 		cache.clear();
 	}
 
 	public static <T> Decision<T> getDecision(List<Decision<T>> decisions) {
+		Selector selector = getSelector();
 		try {
-			return strategySelector.select(decisions);
+			synchronized (selector) {
+				return selector.select(decisions);
+			}
 		} catch (RemoteException e) {
 			e.printStackTrace();
 			throw new RuntimeException(e);
@@ -83,51 +192,107 @@ public class CallChecker {
 		List<Decision<T>> output = new ArrayList<>();
 		List<Strategy> strategies = null;
 		try {
-			strategies = strategySelector.getStrategies();
+			strategies = getSelector().getStrategies();
 		} catch (RemoteException e) {
 			e.printStackTrace();
 			throw new RuntimeException(e);
 		}
+		if (isReplacingReceiverOnly) {
+			strategies = getReceiverReplacements(strategies);
+		}
+		// the static search spaces depend on the method context (e.g. return type)
+		boolean useCache = context != null && !Config.CONFIG.getServerName().equals("Regression");
+		List<Decision>[] cachedSearchSpaces = null;
+		List<Decision>[] newSearchSpaces = null;
+		if (useCache) {
+			cachedSearchSpaces = cache.get(strategies, currentClassLoader, location, clazz, action);
+			if (cachedSearchSpaces == null) {
+				newSearchSpaces = new List[strategies.size()];
+			}
+		}
 		disable();
 		for (int i = 0; i < strategies.size(); i++) {
 			Strategy strategy = strategies.get(i);
+			if (cachedSearchSpaces != null && cachedSearchSpaces[i] != null) {
+				SearchSpaceCache.copyTo(cachedSearchSpaces[i], output);
+				continue;
+			}
 			try {
-				output.addAll(strategy.getSearchSpace(value, clazz, location, context));
+				List<Decision<T>> searchSpace = strategy.getSearchSpace(value, clazz, location, context);
+				output.addAll(searchSpace);
+				if (newSearchSpaces != null && strategy.isStaticSearchSpace()) {
+					newSearchSpaces[i] = SearchSpaceCache.copyOf(searchSpace);
+				}
 			} catch (Exception e) {
 				e.printStackTrace();
 				continue;
 			}
 		}
 		enable();
+		if (newSearchSpaces != null) {
+			cache.put(strategies, currentClassLoader, location, clazz, action, newSearchSpaces);
+		}
 		return output;
 	}
 
-	public static  Map<Location, List<Decision>> cache = new HashMap<>();
-	public static  Map<Location, Decision> decisions = new HashMap<>();
+	private static List<Strategy> getReceiverReplacements(List<Strategy> strategies) {
+		List<Strategy> output = new ArrayList<>();
+		for (int i = 0; i < strategies.size(); i++) {
+			Strategy strategy = strategies.get(i);
+			if (strategy.isCompatibleAction(Strategy.ACTION.isCalled) && !(strategy instanceof Strat4)) {
+				output.add(strategy);
+			}
+		}
+		return output;
+	}
 
-	private static <T> T called(Strategy.ACTION action, T o, Class clazz, int line, int sourceStart, int sourceEnd) {
-		Location location = getLocation(line, sourceStart, sourceEnd);
-		if (o != null) {
-			return action == Strategy.ACTION.beforeDeref? (T) Boolean.TRUE : o;
+	// search spaces of the strategies that do not depend on the runtime values
+	public static final SearchSpaceCache cache = new SearchSpaceCache(4096);
+	public static  ConcurrentMap<Location, Decision> decisions = new ConcurrentHashMap<>();
+
+	// applications of the decisions not yet sent to the selector
+	private static final ApplicationCounter applications = new ApplicationCounter();
+
+	/**
+	 * Drops the decisions of the previous lapse and re-enables the current thread
+	 * the first time the lapse is seen
+	 */
+	private static void startLapse(Lapse currentLapse) {
+		ThreadState state = getThreadState();
+		if (!currentLapse.equals(state.lastLapse)) {
+			state.isEnable = true;
+			state.lastLapse = currentLapse;
+		}
+		if (!currentLapse.equals(lastLapse)) {
+			synchronized (CallChecker.class) {
+				if (!currentLapse.equals(lastLapse)) {
+					decisions.clear();
+					applications.clear();
+					lastLapse = currentLapse;
+				}
+			}
 		}
+	}
 
+	private static <T> T called(Strategy.ACTION action, T o, Class clazz, Location location) {
+		checkCancelled();
+		if (location == null) {
+			return action == Strategy.ACTION.beforeDeref? (T) Boolean.TRUE : o;
+		}
 		Lapse currentLapse;
 		try {
 			currentLapse = getCurrentLapse();
 			if (currentLapse == null) {
 				return action == Strategy.ACTION.beforeDeref? (T) Boolean.TRUE : o;
 			}
-			if (!currentLapse.equals(lastLapse)) {
-				decisions.clear();
-				enable();
-			}
-			lastLapse = currentLapse;
+			hasDereferencedNull = true;
+			startLapse(currentLapse);
 		} catch (RemoteException e) {
 			e.printStackTrace();
 			return o;
 		}
-		if(decisions.containsKey(location)) {
-			Decision decision = decisions.get(location);
+		Decision decision = decisions.get(location);
+		if(decision != null) {
 			if(!decision.getStrategy().isCompatibleAction(action)) {
 				return o;
 			}
@@ -136,12 +301,7 @@ public class CallChecker {
 			decision.increaseNbUse();
 			decision.setUsed(true);
 			enable();
-			try {
-				currentLapse.addApplication(decision);
-				strategySelector.updateCurrentLapse(currentLapse);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			applications.increment(decision);
 			if(decision.getStrategy() instanceof Strat4) {
 				throw new ForceReturn(decision);
 			}
@@ -153,39 +313,20 @@ public class CallChecker {
 		if (!Config.CONFIG.isMultiPoints()) {
 			Collection<Decision> usedDecisions = decisions.values();
 			for (Iterator<Decision> iterator = usedDecisions.iterator(); iterator.hasNext(); ) {
-				Decision decision = iterator.next();
-				if (decision.isUsed()) {
+				Decision usedDecision = iterator.next();
+				if (usedDecision.isUsed()) {
 					return action == Strategy.ACTION.beforeDeref? (T) Boolean.TRUE : o;
 				}
 			}
 		}
 
-		List<Decision<T>> searchSpace = new ArrayList<>();
-		if(false && cache.containsKey(location) && !Config.CONFIG.getServerName().equals("Regression")) {
-			List<Decision> decisions = cache.get(location);
-			for (int i = 0; i < decisions.size(); i++) {
-				Decision<T> decision =  decisions.get(i);
-				searchSpace.add(decision);
-			}
-		} else {
-			searchSpace = getSearchSpace(action, o, clazz, location, getCurrentMethodContext());
-			cache.put(location, new ArrayList<Decision>(searchSpace));
-		}
+		List<Decision<T>> searchSpace = getSearchSpace(action, o, clazz, location, getCurrentMethodContext());
 
 		if(searchSpace.isEmpty()) {
 			return o;
 		}
 
-		Decision<?> decision = getDecision(searchSpace);
-
-		try {
-			currentLapse.addDecision(decision);
-			strategySelector.updateCurrentLapse(currentLapse);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-
-		decisions.put(location, decision);
+		decision = selectDecision(currentLapse, location, searchSpace);
 
 		if(!decision.getStrategy().isCompatibleAction(action)) {
 			disable();
@@ -193,12 +334,7 @@ public class CallChecker {
 		}
 		//System.out.println("Stack size: " + stack.size());
 		//System.out.println("Nb method calls: " + MethodContext.idCount);
-		try {
-			currentLapse.addApplication(decision);
-			strategySelector.updateCurrentLapse(currentLapse);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		applications.increment(decision);
 		decision.increaseNbUse();
 		decision.setUsed(true);
 
@@ -217,28 +353,20 @@ public class CallChecker {
 			if (currentLapse == null) {
 				throw throwable;
 			}
-			if (!currentLapse.equals(lastLapse)) {
-				decisions.clear();
-				enable();
-			}
-			lastLapse = currentLapse;
+			hasDereferencedNull = true;
+			startLapse(currentLapse);
 		} catch (RemoteException e) {
 			e.printStackTrace();
 			throw throwable;
 		}
-		if(decisions.containsKey(getCurrentMethodContext().getLocation())) {
-			Decision decision = decisions.get(getCurrentMethodContext().getLocation());
+		Decision decision = decisions.get(getCurrentMethodContext().getLocation());
+		if(decision != null) {
 			//System.out.println("Stack size: " + stack.size());
 			//System.out.println("Nb method calls" + MethodContext.idCount);
 			decision.increaseNbUse();
 			decision.setUsed(true);
 			enable();
-			try {
-				currentLapse.addApplication(decision);
-				strategySelector.updateCurrentLapse(currentLapse);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			applications.increment(decision);
 			return (T) decision.getValue();
 		}
 
@@ -252,35 +380,29 @@ public class CallChecker {
 		if (!Config.CONFIG.isMultiPoints()) {
 			Collection<Decision> usedDecisions = decisions.values();
 			for (Iterator<Decision> iterator = usedDecisions.iterator(); iterator.hasNext(); ) {
-				Decision decision = iterator.next();
-				if (decision.isUsed()) {
+				Decision usedDecision = iterator.next();
+				if (usedDecision.isUsed()) {
 					throw throwable;
 				}
 			}
 		}
 
 		List<Decision<T>> searchSpace = new ArrayList<>();
-		if(false && cache.containsKey(getCurrentMethodContext().getLocation()) && !Config.CONFIG.getServerName().equals("Regression")) {
-			List<Decision> decisions = cache.get(getCurrentMethodContext().getLocation());
-			for (int i = 0; i < decisions.size(); i++) {
-				Decision<T> decision =  decisions.get(i);
-				searchSpace.add(decision);
-			}
-		} else {
-			for (MethodContext context : new ArrayList<>(stack)) {
-				List<Decision<T>> space = getSearchSpace(Strategy.ACTION.tryRepair, null, context.getMethodType(), context.getLocation(), context);
-				searchSpace.addAll(space);
-			}
-			cache.put(getCurrentMethodContext().getLocation(), new ArrayList<Decision>(searchSpace));
+		for (MethodContext context : getStack()) {
+			List<Decision<T>> space = getSearchSpace(Strategy.ACTION.tryRepair, null, context.getMethodType(), context.getLocation(), context);
+			searchSpace.addAll(space);
 		}
 
 		if(searchSpace.isEmpty()) {
 			throw new NoMoreDecision();
 		}
 
-		Decision<?> decision = getDecision(searchSpace);
+		decision = getDecision(searchSpace);
 
-		decisions.put(decision.getLocation(), decision);
+		Decision concurrentDecision = decisions.putIfAbsent(decision.getLocation(), decision);
+		if (concurrentDecision != null) {
+			decision = concurrentDecision;
+		}
 
 
 		if (!decision.getLocation().equals(getCurrentMethodContext().getLocation())) {
@@ -290,9 +412,9 @@ public class CallChecker {
 
 		//System.out.println("Stack size: " + stack.size());
 		//System.out.println("Nb method calls: " + MethodContext.idCount);
+		applications.increment(decision);
 		try {
-			currentLapse.addApplication(decision);
-			strategySelector.updateCurrentLapse(currentLapse);
+			updateLapse(currentLapse);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -302,24 +424,107 @@ public class CallChecker {
 		return (T) decision.getValue();
 	}
 
+	/**
+	 * Selects a new decision at a location, when another thread
+	 * already decided for this location its decision is kept
+	 */
+	private static <T> Decision selectDecision(Lapse currentLapse, Location location, List<Decision<T>> searchSpace) {
+		Decision decision = getDecision(searchSpace);
+		Decision concurrentDecision = decisions.putIfAbsent(location, decision);
+		if (concurrentDecision != null) {
+			return concurrentDecision;
+		}
+		try {
+			currentLapse.addDecision(decision);
+			updateLapse(currentLapse);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return decision;
+	}
+
+	/**
+	 * Sends the current lapse with the pending applications to the selector
+	 */
+	private static void updateLapse(Lapse currentLapse) throws RemoteException {
+		applications.flushTo(currentLapse);
+		getSelector().updateCurrentLapse(currentLapse);
+	}
+
+	/**
+	 * Sends the pending applications of the current lapse to the selector,
+	 * called at the end of each test
+	 */
+	public static void flushApplications() {
+		if (applications.isEmpty()) {
+			return;
+		}
+		try {
+			Lapse currentLapse = getCurrentLapse();
+			if (currentLapse == null) {
+				applications.clear();
+				return;
+			}
+			updateLapse(currentLapse);
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
 	private static Lapse getCurrentLapse() throws RemoteException {
-		if (isEnable) {
-			return strategySelector.getCurrentLapse();
+		return getSelector().getCurrentLapse();
+	}
+
+	/*
+	 * The hooks are called on each dereference of the instrumented code:
+	 * the non-null path must stay a single branch without allocation,
+	 * everything else is in the slow path.
+	 */
+
+	public static <T> T beforeCalled(T o, Class clazz, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (o != null) {
+			return o;
 		}
-		return selectorBackup.getCurrentLapse();
+		return called(Strategy.ACTION.beforeCalled, null, clazz, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
 	}
 
 	public static <T> T beforeCalled(T o, Class clazz, int line, int sourceStart, int sourceEnd) {
-		return called(Strategy.ACTION.beforeCalled, o, clazz, line, sourceStart, sourceEnd);
+		if (o != null) {
+			return o;
+		}
+		return called(Strategy.ACTION.beforeCalled, null, clazz, getLocation(line, sourceStart, sourceEnd));
+	}
+
+	public static <T> T isCalled(T o, Class clazz, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (o != null) {
+			return o;
+		}
+		return called(Strategy.ACTION.isCalled, null, clazz, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
 	}
 
 	public static <T> T isCalled(T o, Class clazz, int line, int sourceStart, int sourceEnd) {
-		return called(Strategy.ACTION.isCalled, o, clazz, line, sourceStart, sourceEnd);
+		if (o != null) {
+			return o;
+		}
+		return called(Strategy.ACTION.isCalled, null, clazz, getLocation(line, sourceStart, sourceEnd));
+	}
+
+	public static boolean beforeDeref(Object o, Class clazz, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (o != null) {
+			return true;
+		}
+		return beforeDerefNull(clazz, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
 	}
 
 	public static boolean beforeDeref(Object o, Class clazz, int line, int sourceStart, int sourceEnd) {
-		Object called = called(Strategy.ACTION.beforeDeref, o, clazz, line,
-				sourceStart, sourceEnd);
+		if (o != null) {
+			return true;
+		}
+		return beforeDerefNull(clazz, getLocation(line, sourceStart, sourceEnd));
+	}
+
+	private static boolean beforeDerefNull(Class clazz, Location location) {
+		Object called = called(Strategy.ACTION.beforeDeref, null, clazz, location);
 		if(called == null) {
 			return true;
 		}
@@ -345,40 +550,108 @@ public class CallChecker {
 		}
 	}
 
+	public static <T> T arrayAccess(Object array, int index, Class<T> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (array instanceof Object[]) {
+			Object[] objects = (Object[]) array;
+			if (index >= 0 && index < objects.length) {
+				return (T) objects[index];
+			}
+		} else if (index >= 0 && index < Array.getLength(array)) {
+			return (T) Array.get(array, index);
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
 	public static <T> T arrayAccess(Object array, int index, Class<T> type, int line, int sourceStart, int sourceEnd) {
-		Location location = getLocation(line, sourceStart, sourceEnd);
-		System.out.println(location);
-		int size = Array.getLength(array);
-		if (index >= 0 && size > index) {
+		if (array instanceof Object[]) {
+			Object[] objects = (Object[]) array;
+			if (index >= 0 && index < objects.length) {
+				return (T) objects[index];
+			}
+		} else if (index >= 0 && index < Array.getLength(array)) {
 			return (T) Array.get(array, index);
 		}
+		return arrayAccessOutOfBounds(array, index, type, getLocation(line, sourceStart, sourceEnd));
+	}
 
+	/*
+	 * Typed hooks of the primitive arrays, the elements are read without boxing
+	 */
+
+	public static boolean arrayAccess(boolean[] array, int index, Class<Boolean> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	public static byte arrayAccess(byte[] array, int index, Class<Byte> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	public static char arrayAccess(char[] array, int index, Class<Character> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	public static short arrayAccess(short[] array, int index, Class<Short> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	public static int arrayAccess(int[] array, int index, Class<Integer> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	public static long arrayAccess(long[] array, int index, Class<Long> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	public static float arrayAccess(float[] array, int index, Class<Float> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	public static double arrayAccess(double[] array, int index, Class<Double> type, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		if (index >= 0 && index < array.length) {
+			return array[index];
+		}
+		return arrayAccessOutOfBounds(array, index, type, LocationTable.get(locationId, className, line, sourceStart, sourceEnd));
+	}
+
+	private static <T> T arrayAccessOutOfBounds(Object array, int index, Class<T> type, Location location) {
 		Lapse currentLapse;
 		try {
 			currentLapse = getCurrentLapse();
 			if (currentLapse == null) {
 				return (T) Array.get(array, index);
 			}
-			if (!currentLapse.equals(lastLapse)) {
-				decisions.clear();
-				enable();
-			}
-			lastLapse = currentLapse;
+			startLapse(currentLapse);
 		} catch (RemoteException e) {
 			e.printStackTrace();
 			return (T) Array.get(array, index);
 		}
-		if(decisions.containsKey(location)) {
-			Decision decision = decisions.get(location);
+		Decision decision = decisions.get(location);
+		if(decision != null) {
 			decision.increaseNbUse();
 			decision.setUsed(true);
 			enable();
-			try {
-				currentLapse.addApplication(decision);
-				strategySelector.updateCurrentLapse(currentLapse);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+			applications.increment(decision);
 			if(decision.getStrategy() instanceof Strat4) {
 				throw new ForceReturn(decision);
 			}
@@ -390,50 +663,26 @@ public class CallChecker {
 		if (!Config.CONFIG.isMultiPoints()) {
 			Collection<Decision> usedDecisions = decisions.values();
 			for (Iterator<Decision> iterator = usedDecisions.iterator(); iterator.hasNext(); ) {
-				Decision decision = iterator.next();
-				if (decision.isUsed()) {
+				Decision usedDecision = iterator.next();
+				if (usedDecision.isUsed()) {
 					return (T) Array.get(array, index);
 				}
 			}
 		}
 
-		List<Decision<T>> searchSpace = new ArrayList<>();
-		if(false && cache.containsKey(location) && !Config.CONFIG.getServerName().equals("Regression")) {
-			List<Decision> decisions = cache.get(location);
-			for (int i = 0; i < decisions.size(); i++) {
-				Decision<T> decision =  decisions.get(i);
-				searchSpace.add(decision);
-			}
-		} else {
-			searchSpace = getSearchSpace(Strategy.ACTION.arrayAccess, array, type, location, getCurrentMethodContext());
-			cache.put(location, new ArrayList<Decision>(searchSpace));
-		}
+		List<Decision<T>> searchSpace = getSearchSpace(Strategy.ACTION.arrayAccess, array, type, location, getCurrentMethodContext());
 
 		if(searchSpace.isEmpty()) {
 			return (T) Array.get(array, index);
 		}
 
-		Decision<?> decision = getDecision(searchSpace);
-
-		try {
-			currentLapse.addDecision(decision);
-			strategySelector.updateCurrentLapse(currentLapse);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-
-		decisions.put(location, decision);
+		decision = selectDecision(currentLapse, location, searchSpace);
 
 		if(!decision.getStrategy().isCompatibleAction(Strategy.ACTION.arrayAccess)) {
 			disable();
 			return (T) Array.get(array, index);
 		}
-		try {
-			currentLapse.addApplication(decision);
-			strategySelector.updateCurrentLapse(currentLapse);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		applications.increment(decision);
 		decision.increaseNbUse();
 		decision.setUsed(true);
 
@@ -469,59 +718,82 @@ public class CallChecker {
 		return (T) table;
 	}
 
-	public synchronized static void enable() {
-		if(isEnable()) {
-			return;
-		}
-		CallChecker.strategySelector = selectorBackup;
-		DomSelector.strategy = strategyBackup;
-		isEnable = true;
+	/**
+	 * Stores the assigned value in the slot of the variable in the current frame
+	 */
+	public static <T> T varAssign(Object table, int slot, String variableName, int line, int sourceStart, int sourceEnd) {
+		setVariable(slot, variableName, table);
+		return (T) table;
 	}
 
-	public synchronized static void disable() {
-		if(!isEnable()) {
-			return;
-		}
-		selectorBackup = CallChecker.strategySelector;
-		strategyBackup = DomSelector.strategy;
-		CallChecker.strategySelector = new DomSelector();
-		DomSelector.strategy = new NoStrat();
-		isEnable = false;
+	public static <T> T varInit(Object table, int slot, String variableName, int line, int sourceStart, int sourceEnd) {
+		setVariable(slot, variableName, table);
+		return (T) table;
+	}
+
+	/**
+	 * Enables the decisions in the current thread
+	 */
+	public static void enable() {
+		getThreadState().isEnable = true;
+	}
+
+	/**
+	 * Disables the decisions in the current thread,
+	 * used to avoid reentrant calls from the code executed by the strategies
+	 */
+	public static void disable() {
+		getThreadState().isEnable = false;
 	}
 
 	public static boolean isEnable() {
-		return isEnable;
+		return getThreadState().isEnable;
+	}
+
+	private static void setVariable(int slot, String variableName, Object table) {
+		ThreadState state = getThreadState();
+		if (state.isEnable
+				&& !(CallChecker.strategySelector instanceof DomSelector
+				&& DomSelector.strategy instanceof NoStrat) && !state.stack.isEmpty()) {
+			state.stack.peek().setVariable(slot, variableName, table);
+		}
 	}
 
 	private static void addObjectInStack(String variableName, Object table) {
-		if (isEnable()
+		ThreadState state = getThreadState();
+		if (state.isEnable
 				&& !(CallChecker.strategySelector instanceof DomSelector
-				&& DomSelector.strategy instanceof NoStrat) && !stack.isEmpty()) {
-			disable();
+				&& DomSelector.strategy instanceof NoStrat) && !state.stack.isEmpty()) {
+			state.isEnable = false;
 			try {
-				stack.peek().addVariable(variableName, table);
+				state.stack.peek().addVariable(variableName, table);
 			} catch (Throwable e) {
 				// ignore
 			} finally {
-				enable();
+				state.isEnable = true;
 			}
 		}
 	}
 
 	public static void methodStart(MethodContext methodType) {
-		stack.push(methodType);
+		checkCancelled();
+		getThreadState().stack.push(methodType);
 	}
 
 	public static void methodEnd(MethodContext methodContext) {
-		stack.remove(methodContext);
+		getThreadState().stack.pop(methodContext);
 	}
 
 	public static MethodContext getCurrentMethodContext() {
-		return stack.peek();
+		// null when the thread started outside of the instrumented methods
+		return getThreadState().stack.peek();
 	}
 
-	public static Stack<MethodContext> getStack() {
-		return stack;
+	/**
+	 * Returns a copy of the method contexts of the current thread, from the bottom to the top
+	 */
+	public static List<MethodContext> getStack() {
+		return getThreadState().stack.toList();
 	}
 
 	public static Location getLocation(int line, int sourceStart, int sourceEnd) {
@@ -0,0 +1,289 @@
+package fr.inria.spirals.npefix.resi;
+
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.context.LocationTable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory coverage of the instrumented blocks indexed by their location id.
+ *
+ * The hits are accumulated in arrays and written in a binary file at the
+ * end of a lapse and when the JVM exits. Each flush appends the hits since
+ * the previous flush as one record written under an exclusive lock of the
+ * file, the file can be shared by several JVMs.
+ * {@link #toCsv(File, File, File)} converts the binary file to the
+ * block-output.csv and method-output.csv format.
+ *
+ * The counters are not synchronized, concurrent executions of the same
+ * block can lose hits but never the coverage of the block.
+ */
+public class CoverageRecorder {
+
+	public static final String OUTPUT_PROPERTY = "npefix.coverage.output";
+	public static final String DEFAULT_OUTPUT = "block-coverage.bin";
+
+	private static final int MAGIC = 0x4e504643;
+
+	private static volatile long[] hits = new long[1024];
+	private static long[] flushedHits = new long[1024];
+	private static long[] firstHits = new long[1024];
+	private static Location[] locations = new Location[1024];
+	private static final BitSet covered = new BitSet();
+	private static final BitSet executableBlocks = new BitSet();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}));
+	}
+
+	public static void hit(int id, boolean isExecutableBlock, String className, int line, int sourceStart, int sourceEnd) {
+		long[] table = hits;
+		if (id < table.length && table[id] != 0) {
+			table[id]++;
+			return;
+		}
+		firstHit(id, isExecutableBlock, LocationTable.get(id, className, line, sourceStart, sourceEnd));
+	}
+
+	private synchronized static void firstHit(int id, boolean isExecutableBlock, Location location) {
+		if (id >= hits.length) {
+			int size = Math.max(hits.length * 2, id + 1);
+			flushedHits = Arrays.copyOf(flushedHits, size);
+			firstHits = Arrays.copyOf(firstHits, size);
+			locations = Arrays.copyOf(locations, size);
+			hits = Arrays.copyOf(hits, size);
+		}
+		if (!covered.get(id)) {
+			covered.set(id);
+			if (isExecutableBlock) {
+				executableBlocks.set(id);
+			}
+			firstHits[id] = System.currentTimeMillis();
+			locations[id] = location;
+		}
+		hits[id]++;
+	}
+
+	public static long getHits(int id) {
+		long[] table = hits;
+		if (id < 0 || id >= table.length) {
+			return 0;
+		}
+		return table[id];
+	}
+
+	public synchronized static boolean isCovered(int id) {
+		return covered.get(id);
+	}
+
+	public synchronized static int getNbCoveredBlocks() {
+		return covered.cardinality();
+	}
+
+	/**
+	 * Appends the hits since the last flush to the output file
+	 */
+	public static void flush() {
+		flush(new File(System.getProperty(OUTPUT_PROPERTY, DEFAULT_OUTPUT)));
+	}
+
+	public synchronized static void flush(File output) {
+		long[] table = hits;
+		List<Integer> ids = new ArrayList<>();
+		for (int id = covered.nextSetBit(0); id >= 0; id = covered.nextSetBit(id + 1)) {
+			if (table[id] != flushedHits[id]) {
+				ids.add(id);
+			}
+		}
+		if (ids.isEmpty()) {
+			return;
+		}
+		long[] counts = new long[ids.size()];
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(record)) {
+			out.writeInt(MAGIC);
+			out.writeInt(ids.size());
+			for (int i = 0; i < ids.size(); i++) {
+				int id = ids.get(i);
+				Location location = locations[id];
+				counts[i] = table[id];
+				out.writeInt(id);
+				out.writeBoolean(executableBlocks.get(id));
+				out.writeUTF(location.getClassName());
+				out.writeInt(location.getLine());
+				out.writeInt(location.getSourceStart());
+				out.writeInt(location.getSourceEnd());
+				out.writeLong(firstHits[id]);
+				out.writeLong(counts[i] - flushedHits[id]);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		try {
+			append(output, record.toByteArray());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		for (int i = 0; i < ids.size(); i++) {
+			flushedHits[ids.get(i)] = counts[i];
+		}
+	}
+
+	/**
+	 * Appends a record to the file, the lock prevents the records of
+	 * other JVMs to interleave with it
+	 */
+	private static void append(File output, byte[] record) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(output, true)) {
+			FileChannel channel = out.getChannel();
+			try (FileLock lock = channel.lock()) {
+				ByteBuffer buffer = ByteBuffer.wrap(record);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+		}
+	}
+
+	public synchronized static void clear() {
+		hits = new long[1024];
+		flushedHits = new long[1024];
+		firstHits = new long[1024];
+		locations = new Location[1024];
+		covered.clear();
+		executableBlocks.clear();
+	}
+
+	/**
+	 * A block of a coverage file with the hits of all the flushes
+	 */
+	public static class BlockHits {
+		private final Location location;
+		private final boolean isExecutableBlock;
+		private long firstHit;
+		private long hits;
+
+		private BlockHits(Location location, boolean isExecutableBlock, long firstHit) {
+			this.location = location;
+			this.isExecutableBlock = isExecutableBlock;
+			this.firstHit = firstHit;
+		}
+
+		public Location getLocation() {
+			return location;
+		}
+
+		public boolean isExecutableBlock() {
+			return isExecutableBlock;
+		}
+
+		public long getFirstHit() {
+			return firstHit;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+	}
+
+	/**
+	 * Reads a coverage file, the hits of the same block are summed
+	 */
+	public static List<BlockHits> read(File input) throws IOException {
+		Map<Location, BlockHits> blocks = new HashMap<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(input)))) {
+			while (true) {
+				int magic;
+				try {
+					magic = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				if (magic != MAGIC) {
+					throw new IOException("Invalid coverage file " + input);
+				}
+				int size = in.readInt();
+				for (int i = 0; i < size; i++) {
+					in.readInt();
+					boolean isExecutableBlock = in.readBoolean();
+					Location location = new Location(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+					long firstHit = in.readLong();
+					long count = in.readLong();
+					BlockHits block = blocks.get(location);
+					if (block == null) {
+						block = new BlockHits(location, isExecutableBlock, firstHit);
+						blocks.put(location, block);
+					}
+					block.firstHit = Math.min(block.firstHit, firstHit);
+					block.hits += count;
+				}
+			}
+		}
+		List<BlockHits> output = new ArrayList<>(blocks.values());
+		Collections.sort(output, new Comparator<BlockHits>() {
+			@Override
+			public int compare(BlockHits b1, BlockHits b2) {
+				return Long.compare(b1.firstHit, b2.firstHit);
+			}
+		});
+		return output;
+	}
+
+	/**
+	 * Converts a coverage file to the CSV format of the block coverage:
+	 * one line per hit, timestamped with the first hit of the block
+	 */
+	public static void toCsv(File input, File blockOutput, File methodOutput) throws IOException {
+		String separator = System.getProperty("line.separator");
+		try (Writer blockWriter = new BufferedWriter(new FileWriter(blockOutput, true));
+				Writer methodWriter = new BufferedWriter(new FileWriter(methodOutput, true))) {
+			for (BlockHits block : read(input)) {
+				Location location = block.getLocation();
+				String line = block.getFirstHit() + "\t" + location.getClassName() + "\t" + location.getLine() + "\t" + location.getSourceStart() + "\t" + location.getSourceEnd() + separator;
+				for (long i = 0; i < block.getHits(); i++) {
+					blockWriter.write(line);
+					if (block.isExecutableBlock()) {
+						methodWriter.write(line);
+					}
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: CoverageRecorder <coverage file> [block csv] [method csv]");
+			System.exit(1);
+		}
+		File blockOutput = new File(args.length > 1 ? args[1] : "block-output.csv");
+		File methodOutput = new File(args.length > 2 ? args[2] : "method-output.csv");
+		toCsv(new File(args[0]), blockOutput, methodOutput);
+	}
+}
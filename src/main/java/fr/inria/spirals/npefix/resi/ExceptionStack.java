@@ -2,36 +2,49 @@ package fr.inria.spirals.npefix.resi;
 
 import fr.inria.spirals.npefix.resi.context.TryContext;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * Stack of the try blocks entered by each thread
+ */
 public class ExceptionStack {
-	
-	private static List<TryContext> tryContexts = new ArrayList<>();
-	
+
+	private static class TryStack {
+		private TryContext[] tryContexts = new TryContext[32];
+		private int size = 0;
+	}
+
+	private static final ThreadLocal<TryStack> tryStacks = new ThreadLocal<TryStack>() {
+		@Override
+		protected TryStack initialValue() {
+			return new TryStack();
+		}
+	};
+
 	public static void register(TryContext tc) {
-		tryContexts.add(tc);
+		TryStack stack = tryStacks.get();
+		if (stack.size == stack.tryContexts.length) {
+			stack.tryContexts = Arrays.copyOf(stack.tryContexts, stack.size * 2);
+		}
+		stack.tryContexts[stack.size++] = tc;
 	}
-	
+
 	public static void unregister(TryContext tc){
-		if(tryContexts.isEmpty())
+		TryStack stack = tryStacks.get();
+		if(stack.size == 0)
 			return;
-		if(tryContexts.get(tryContexts.size()-1).equals(tc)){
-			tryContexts.remove(tryContexts.size()-1);
-		}else{
-			//System.err.println("oops?");
+		// the catch and the finally of a try both unregister its context
+		if(stack.tryContexts[stack.size - 1] == tc){
+			stack.tryContexts[--stack.size] = null;
 		}
 	}
 
 	public static boolean isStoppable(Class<? extends Exception> c){
-		for (TryContext tryContext : tryContexts) {
-			if (tryContext == null) {
-				continue;
-			}
-			for (Class clazz : tryContext.getTypes()) {
-				if(clazz.isAssignableFrom(c)){
-					return true;
-				}
+		TryStack stack = tryStacks.get();
+		for (int i = stack.size - 1; i >= 0; i--) {
+			TryContext tryContext = stack.tryContexts[i];
+			if (tryContext != null && tryContext.isCatching(c)) {
+				return true;
 			}
 		}
 		return false;
@@ -0,0 +1,81 @@
+package fr.inria.spirals.npefix.resi;
+
+import fr.inria.spirals.npefix.transformer.utils.IConstants;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classes instrumented by StaticStateReset that are initialized.
+ *
+ * {@link #reset()} reinitializes the static fields of these classes in
+ * their initialization order. The lapses can then reuse the class loader
+ * of the project instead of loading the project again, as long as no
+ * initialized class is registered as not resettable.
+ */
+public class StaticStateRegistry {
+
+	private static final List<Method> resetMethods = new ArrayList<>();
+	private static boolean complete = true;
+
+	public static void register(Class<?> clazz) {
+		register(clazz, true);
+	}
+
+	/**
+	 * Registers an initialized class
+	 *
+	 * @param resettable false if the static state of the class cannot be reset
+	 * @return resettable, the value of the field that registers the class
+	 */
+	public synchronized static boolean register(Class<?> clazz, boolean resettable) {
+		if (!resettable) {
+			complete = false;
+			return false;
+		}
+		try {
+			Method method = clazz.getDeclaredMethod(IConstants.Method.RESET_STATIC_STATE);
+			method.setAccessible(true);
+			resetMethods.add(method);
+		} catch (NoSuchMethodException e) {
+			e.printStackTrace();
+			complete = false;
+		}
+		return resettable;
+	}
+
+	/**
+	 * Returns true if the static state of all the registered classes can be reset
+	 */
+	public synchronized static boolean isComplete() {
+		return complete;
+	}
+
+	public synchronized static void reset() {
+		// the reset of a class can initialize another class
+		List<Method> methods = new ArrayList<>(resetMethods);
+		for (Method method : methods) {
+			try {
+				method.invoke(null);
+			} catch (IllegalAccessException e) {
+				e.printStackTrace();
+			} catch (InvocationTargetException e) {
+				e.getCause().printStackTrace();
+			}
+		}
+	}
+
+	public synchronized static int size() {
+		return resetMethods.size();
+	}
+
+	/**
+	 * Forgets the registered classes, when the class loader of the project changes
+	 */
+	public synchronized static void clear() {
+		resetMethods.clear();
+		complete = true;
+	}
+}
@@ -0,0 +1,54 @@
+package fr.inria.spirals.npefix.resi.context;
+
+/**
+ * Counts the applications of the decisions of a lapse locally,
+ * the counts are added to the lapse in one update of the selector.
+ */
+public class ApplicationCounter {
+
+	private Decision[] decisions = new Decision[8];
+	private int[] counts = new int[8];
+	private int size = 0;
+
+	public synchronized void increment(Decision decision) {
+		// a lapse contains only a few decisions
+		for (int i = 0; i < size; i++) {
+			if (decisions[i] == decision) {
+				counts[i]++;
+				return;
+			}
+		}
+		if (size == decisions.length) {
+			Decision[] newDecisions = new Decision[size * 2];
+			int[] newCounts = new int[size * 2];
+			System.arraycopy(decisions, 0, newDecisions, 0, size);
+			System.arraycopy(counts, 0, newCounts, 0, size);
+			decisions = newDecisions;
+			counts = newCounts;
+		}
+		decisions[size] = decision;
+		counts[size] = 1;
+		size++;
+	}
+
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Adds the counted applications to the lapse and resets the counter
+	 */
+	public synchronized void flushTo(Lapse lapse) {
+		for (int i = 0; i < size; i++) {
+			lapse.addApplication(decisions[i], counts[i]);
+		}
+		clear();
+	}
+
+	public synchronized void clear() {
+		for (int i = 0; i < size; i++) {
+			decisions[i] = null;
+		}
+		size = 0;
+	}
+}
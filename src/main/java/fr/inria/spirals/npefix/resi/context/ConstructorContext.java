@@ -1,6 +1,10 @@
 package fr.inria.spirals.npefix.resi.context;
 
 public class ConstructorContext extends MethodContext {
+	public ConstructorContext(Class c, String methodName, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		super(c, methodName, locationId, className, line, sourceStart, sourceEnd);
+	}
+
 	public ConstructorContext(Class c, int line, int sourceStart, int sourceEnd) {
 		super(c, line, sourceStart, sourceEnd);
 	}
@@ -37,6 +37,14 @@ public class Decision<T> implements Serializable {
 		this.valueType = valueType.getCanonicalName();
 	}
 
+	/**
+	 * Creates an unused decision with the same strategy, location and value
+	 */
+	public Decision(Decision<T> decision) {
+		this(decision.strategy, decision.location, decision.value);
+		this.valueType = decision.valueType;
+	}
+
 	public boolean isUsed() {
 		return isUsed;
 	}
@@ -84,6 +92,14 @@ public class Decision<T> implements Serializable {
 		this.valueType = valueType.getCanonicalName();
 	}
 
+	public String getValueTypeName() {
+		return valueType;
+	}
+
+	public void setValueTypeName(String valueType) {
+		this.valueType = valueType;
+	}
+
 	public DecisionType getDecisionType() {
 		return decisionType;
 	}
@@ -141,7 +157,18 @@ public class Decision<T> implements Serializable {
 
 	@Override
 	public int hashCode() {
-		return -1;
+		int result = strategy.hashCode();
+		result = 31 * result + location.hashCode();
+		result = 31 * result + (valueType != null ? valueType.hashCode() : 0);
+		result = 31 * result + (value != null ? value.hashCode() : 0);
+		return result;
+	}
+
+	/**
+	 * Returns the interned id of the decision, equal decisions have the same id
+	 */
+	public int getId() {
+		return DecisionTable.getId(this);
 	}
 
 	public JSONObject toJSON() {
@@ -0,0 +1,48 @@
+package fr.inria.spirals.npefix.resi.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the decisions of the JVM: equal decisions receive the same
+ * id, the ids are allocated sequentially and can index arrays.
+ */
+public class DecisionTable {
+
+	private static final ConcurrentMap<Decision, Integer> ids = new ConcurrentHashMap<>();
+	private static final List<Decision> decisions = new ArrayList<>();
+
+	public static int getId(Decision decision) {
+		Integer id = ids.get(decision);
+		if (id != null) {
+			return id;
+		}
+		return register(decision);
+	}
+
+	private synchronized static int register(Decision decision) {
+		Integer id = ids.get(decision);
+		if (id != null) {
+			return id;
+		}
+		// a copy is interned, the decision can be modified by its owner
+		Decision key = new Decision(decision);
+		id = decisions.size();
+		decisions.add(key);
+		ids.put(key, id);
+		return id;
+	}
+
+	/**
+	 * Returns the interned decision of an id
+	 */
+	public synchronized static Decision get(int id) {
+		return decisions.get(id);
+	}
+
+	public static int size() {
+		return ids.size();
+	}
+}
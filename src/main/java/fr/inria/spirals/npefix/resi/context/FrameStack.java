@@ -0,0 +1,77 @@
+package fr.inria.spirals.npefix.resi.context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stack of the method contexts of a thread.
+ *
+ * The stack is only accessed by its thread, it is not synchronized.
+ */
+public class FrameStack {
+
+	private MethodContext[] frames = new MethodContext[64];
+	private int size = 0;
+
+	public void push(MethodContext context) {
+		if (size == frames.length) {
+			frames = Arrays.copyOf(frames, size * 2);
+		}
+		frames[size++] = context;
+	}
+
+	/**
+	 * Removes the context of an ended method.
+	 * When the context is not on the top, the contexts above it belong to
+	 * methods that ended without notification and are removed too.
+	 */
+	public void pop(MethodContext context) {
+		if (size > 0 && frames[size - 1] == context) {
+			frames[--size] = null;
+			return;
+		}
+		for (int i = size - 2; i >= 0; i--) {
+			if (frames[i] == context) {
+				for (int j = i; j < size; j++) {
+					frames[j] = null;
+				}
+				size = i;
+				return;
+			}
+		}
+	}
+
+	public MethodContext peek() {
+		if (size == 0) {
+			return null;
+		}
+		return frames[size - 1];
+	}
+
+	public MethodContext get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return frames[index];
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a copy of the stack from the bottom to the top
+	 */
+	public List<MethodContext> toList() {
+		List<MethodContext> output = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			output.add(frames[i]);
+		}
+		return output;
+	}
+}
@@ -49,23 +49,31 @@ public class Lapse implements Comparable<Lapse>, Serializable {
 		this.inputSources = inputSources;
 	}
 
-	public void increaseNbApplication(Decision decision) {
+	public synchronized void increaseNbApplication(Decision decision) {
+		increaseNbApplication(decision, 1);
+	}
+
+	public synchronized void increaseNbApplication(Decision decision, int nb) {
 		if(!decisions.contains(decision)) {
 			decisions.add(decision);
 		}
 		if(nbApplication.containsKey(decision)) {
-			nbApplication.put(decision, nbApplication.get(decision) + 1);
+			nbApplication.put(decision, nbApplication.get(decision) + nb);
 		} else {
-			nbApplication.put(decision, 1);
+			nbApplication.put(decision, nb);
 		}
 		if(!currentIndex.containsKey(decision)) {
 			currentIndex.put(decision, 0);
 		}
 	}
 
-	public void addApplication(Decision decision) {
+	public synchronized void addApplication(Decision decision) {
+		addApplication(decision, 1);
+	}
+
+	public synchronized void addApplication(Decision decision, int nb) {
 		locations.add(decision.getLocation());
-		increaseNbApplication(decision);
+		increaseNbApplication(decision, nb);
 	}
 
 	public Map<Decision, Integer> getNbApplication() {
@@ -113,6 +121,10 @@ public class Lapse implements Comparable<Lapse>, Serializable {
 		return decisions;
 	}
 
+	public Date getStartDate() {
+		return startDate;
+	}
+
 	public Date getEndDate() {
 		return endDate;
 	}
@@ -121,10 +133,14 @@ public class Lapse implements Comparable<Lapse>, Serializable {
 		this.endDate = endDate;
 	}
 
-	public void addDecision(Decision mainDecision) {
+	public synchronized void addDecision(Decision mainDecision) {
 		this.decisions.add(mainDecision);
 	}
 
+	public String[] getInputSources() {
+		return inputSources;
+	}
+
 	public boolean isFinished() {
 		return isFinished;
 	}
@@ -0,0 +1,90 @@
+package fr.inria.spirals.npefix.resi.context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Static table of the instrumented locations indexed by their id.
+ *
+ * The ids are allocated during the instrumentation and emitted as
+ * constants in the calls to CallChecker, the runtime only does an
+ * array lookup to retrieve the location of a call.
+ */
+public class LocationTable {
+
+	private static volatile Location[] locations = new Location[1024];
+	private static Map<Location, Integer> ids = new HashMap<>();
+	private static int size = 0;
+
+	/**
+	 * Allocates an id for a location (instrumentation time).
+	 * The same location always receives the same id.
+	 */
+	public synchronized static int register(String className, int line, int sourceStart, int sourceEnd) {
+		Location location = new Location(className.intern(), line, sourceStart, sourceEnd);
+		Integer id = ids.get(location);
+		if (id != null) {
+			return id;
+		}
+		id = size++;
+		ids.put(location, id);
+		put(id, location);
+		return id;
+	}
+
+	/**
+	 * Returns the location of an id (runtime).
+	 * The location is created the first time the id is used in the JVM.
+	 */
+	public static Location get(int id, String className, int line, int sourceStart, int sourceEnd) {
+		Location[] table = locations;
+		if (id < table.length) {
+			Location location = table[id];
+			if (location != null
+					&& location.getClassName() == className
+					&& location.getSourceStart() == sourceStart
+					&& location.getSourceEnd() == sourceEnd) {
+				return location;
+			}
+		}
+		return create(id, className, line, sourceStart, sourceEnd);
+	}
+
+	private synchronized static Location create(int id, String className, int line, int sourceStart, int sourceEnd) {
+		Location location = new Location(className.intern(), line, sourceStart, sourceEnd);
+		put(id, location);
+		if (id >= size) {
+			size = id + 1;
+		}
+		return location;
+	}
+
+	private static void put(int id, Location location) {
+		Location[] table = locations;
+		if (id >= table.length) {
+			Location[] newTable = new Location[Math.max(table.length * 2, id + 1)];
+			System.arraycopy(table, 0, newTable, 0, table.length);
+			table = newTable;
+		}
+		table[id] = location;
+		locations = table;
+	}
+
+	public static Location get(int id) {
+		Location[] table = locations;
+		if (id < 0 || id >= table.length) {
+			return null;
+		}
+		return table[id];
+	}
+
+	public static int size() {
+		return size;
+	}
+
+	public synchronized static void clear() {
+		locations = new Location[1024];
+		ids.clear();
+		size = 0;
+	}
+}
@@ -2,12 +2,22 @@ package fr.inria.spirals.npefix.resi.context;
 
 import fr.inria.spirals.npefix.resi.CallChecker;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MethodContext {
 
-	public static int idCount = 1;
-	private final HashMap<String, Object> variables;
+	public static final AtomicInteger idCount = new AtomicInteger(1);
+
+	private static final String[] NO_NAMES = new String[0];
+	private static final Object[] NO_VALUES = new Object[0];
+
+	// frame of the variables, the slots are allocated by the instrumentation
+	private String[] names;
+	private Object[] values;
+	// variables without slot
+	private HashMap<String, Object> variables;
 	private final Class  methodType;
 	private final String methodName;
 	private final String className;
@@ -23,10 +33,37 @@ public class MethodContext {
 		this.location = new Location(stackTrace.getClassName(), line, -1, -1);
 	}
 
+	/**
+	 * Creates the context of a method with the constants emitted by the instrumentation
+	 */
+	public MethodContext(Class c, String methodName, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		this(c, methodName, 0, locationId, className, line, sourceStart, sourceEnd);
+	}
+
+	/**
+	 * Creates the context of a method with a frame of nbVariables slots
+	 */
+	public MethodContext(Class c, String methodName, int nbVariables, int locationId, String className, int line, int sourceStart, int sourceEnd) {
+		CallChecker.methodStart(this);
+		this.methodType = c;
+		if (nbVariables == 0) {
+			this.names = NO_NAMES;
+			this.values = NO_VALUES;
+		} else {
+			this.names = new String[nbVariables];
+			this.values = new Object[nbVariables];
+		}
+		this.methodName = methodName;
+		this.className = className;
+		this.location = LocationTable.get(locationId, className, line, sourceStart, sourceEnd);
+		this.id = idCount.getAndIncrement();
+	}
+
 	public MethodContext(Class c, int line, int sourceStart, int sourceEnd) {
 		CallChecker.methodStart(this);
 		this.methodType = c;
-		this.variables = new HashMap<String, Object>();
+		this.names = NO_NAMES;
+		this.values = NO_VALUES;
 
 		int stackPosition = 2;
 		if (this.getLocation() != null) {
@@ -38,21 +75,80 @@ public class MethodContext {
 		methodName = stackTrace.getMethodName();
 		className = stackTrace.getClassName();
 		this.location = new Location(stackTrace.getClassName(), line, sourceStart, sourceEnd);
-		this.id = idCount++;
+		this.id = idCount.getAndIncrement();
 	}
 
 	public void methodEnd() {
 		CallChecker.methodEnd(this);
 	}
 
+	/**
+	 * Returns a map of the variables of the method, built on demand by the strategies
+	 */
 	public HashMap<String, Object> getVariables() {
-		return variables;
+		HashMap<String, Object> output = new HashMap<>();
+		for (int i = 0; i < names.length; i++) {
+			if (names[i] != null) {
+				output.put(names[i], values[i]);
+			}
+		}
+		if (variables != null) {
+			output.putAll(variables);
+		}
+		return output;
+	}
+
+	public Object getVariable(String name) {
+		if (variables != null && variables.containsKey(name)) {
+			return variables.get(name);
+		}
+		for (int i = 0; i < names.length; i++) {
+			if (name.equals(names[i])) {
+				return values[i];
+			}
+		}
+		return null;
 	}
 
 	public void addVariable(String name, Object value) {
+		if (variables == null) {
+			variables = new HashMap<>();
+		}
 		variables.put(name, value);
 	}
 
+	/**
+	 * Stores the value of a variable in its slot
+	 */
+	public void setVariable(int slot, String name, Object value) {
+		if (slot >= names.length) {
+			int length = Math.max(slot + 1, names.length * 2);
+			names = Arrays.copyOf(names, length);
+			values = Arrays.copyOf(values, length);
+		}
+		String slotName = names[slot];
+		if (slotName != name && slotName != null && !slotName.equals(name)) {
+			// the slot belongs to the frame of another method
+			addVariable(name, value);
+			return;
+		}
+		names[slot] = name;
+		values[slot] = value;
+	}
+
+	public int getNbVariables() {
+		int nbVariables = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (names[i] != null) {
+				nbVariables++;
+			}
+		}
+		if (variables != null) {
+			nbVariables += variables.size();
+		}
+		return nbVariables;
+	}
+
 	public Class getMethodType() {
 		return methodType;
 	}
@@ -63,7 +159,7 @@ public class MethodContext {
 
 	@Override
 	public String toString() {
-		return "#" + id + " " + className + "#" + methodName + " " + variables.size() + " variables at " + this.getLocation();
+		return "#" + id + " " + className + "#" + methodName + " " + getNbVariables() + " variables at " + this.getLocation();
 	}
 
 	@Override
@@ -0,0 +1,152 @@
+package fr.inria.spirals.npefix.resi.context;
+
+import fr.inria.spirals.npefix.resi.strategies.Strategy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU cache of the search spaces of the locations.
+ *
+ * The cache contains, for each (location, static type, action), the
+ * decisions of the strategies that have a static search space. The
+ * strategies that depend on the runtime values (see
+ * Strategy#isStaticSearchSpace) are recomputed at each lookup.
+ *
+ * The cache is invalidated when the set of strategies or the class
+ * loader of the tested project changes.
+ */
+public class SearchSpaceCache {
+
+	private final int capacity;
+	private final Map<Key, List<Decision>[]> entries;
+	private List<Strategy> strategies;
+	private ClassLoader classLoader;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	public SearchSpaceCache(final int capacity) {
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Key, List<Decision>[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<Decision>[]> eldest) {
+				if (size() > SearchSpaceCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached search space of each strategy, null for the
+	 * strategies to recompute. Returns null when the location is not cached.
+	 */
+	public synchronized List<Decision>[] get(List<Strategy> strategies, ClassLoader classLoader, Location location, Class type, Strategy.ACTION action) {
+		validate(strategies, classLoader);
+		List<Decision>[] entry = entries.get(new Key(location, type, action));
+		if (entry == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return entry;
+	}
+
+	public synchronized void put(List<Strategy> strategies, ClassLoader classLoader, Location location, Class type, Strategy.ACTION action, List<Decision>[] searchSpaces) {
+		validate(strategies, classLoader);
+		entries.put(new Key(location, type, action), searchSpaces);
+	}
+
+	/**
+	 * Returns a new decision for each cached decision: the decisions
+	 * are modified during a lapse (use, type of decision)
+	 */
+	public static <T> void copyTo(List<Decision> cachedDecisions, List<Decision<T>> output) {
+		for (int i = 0; i < cachedDecisions.size(); i++) {
+			output.add(new Decision<T>(cachedDecisions.get(i)));
+		}
+	}
+
+	public static List<Decision> copyOf(List<? extends Decision> decisions) {
+		List<Decision> output = new ArrayList<>(decisions.size());
+		for (int i = 0; i < decisions.size(); i++) {
+			output.add(new Decision(decisions.get(i)));
+		}
+		return output;
+	}
+
+	private void validate(List<Strategy> strategies, ClassLoader classLoader) {
+		if (this.classLoader != classLoader
+				|| (this.strategies != strategies
+					&& (this.strategies == null || !this.strategies.equals(strategies)))) {
+			entries.clear();
+			this.classLoader = classLoader;
+		}
+		this.strategies = strategies;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		strategies = null;
+		classLoader = null;
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	private static class Key {
+		private final Location location;
+		private final Class type;
+		private final Strategy.ACTION action;
+
+		private Key(Location location, Class type, Strategy.ACTION action) {
+			this.location = location;
+			this.type = type;
+			this.action = action;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (o == null || getClass() != o.getClass())
+				return false;
+
+			Key key = (Key) o;
+
+			return location.equals(key.location)
+					&& type == key.type
+					&& action == key.action;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = location.hashCode();
+			result = 31 * result + (type != null ? type.hashCode() : 0);
+			result = 31 * result + action.hashCode();
+			return result;
+		}
+	}
+}
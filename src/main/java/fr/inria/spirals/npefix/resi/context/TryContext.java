@@ -2,11 +2,35 @@ package fr.inria.spirals.npefix.resi.context;
 
 import fr.inria.spirals.npefix.resi.ExceptionStack;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 public class TryContext {
 
+	// answers of isCatching shared by all the contexts of a try, indexed by the id of the try,
+	// the caches are attached to the class of the try and released with its class loader
+	private static final ClassValue<ConcurrentMap<Integer, ConcurrentMap<Class<?>, Boolean>>> catchCaches =
+			new ClassValue<ConcurrentMap<Integer, ConcurrentMap<Class<?>, Boolean>>>() {
+				@Override
+				protected ConcurrentMap<Integer, ConcurrentMap<Class<?>, Boolean>> computeValue(Class<?> type) {
+					return new ConcurrentHashMap<>();
+				}
+			};
+
 	private int id = -1;
 	private Class<?>[] types;
 	private Class<?> context;
+	private ConcurrentMap<Class<?>, Boolean> catchCache;
+
+	/**
+	 * Creates the context of a try with the catch types resolved by the instrumentation
+	 */
+	public TryContext(int id, Class<?> context, Class<?>[] types) {
+		this.id = id;
+		this.types = types;
+		this.context = context;
+		ExceptionStack.register(this);
+	}
 
 	public TryContext(int id, Class<?> context, String... types) {
 		this.id=id;
@@ -32,7 +56,46 @@ public class TryContext {
 	public void finallyStart(int i) {
 		ExceptionStack.unregister(this);
 	}
-	
+
+	/**
+	 * Returns true if one of the catch of the try catches the exception type
+	 */
+	public boolean isCatching(Class<?> exceptionType) {
+		ConcurrentMap<Class<?>, Boolean> cache = getCatchCache();
+		Boolean isCatching = cache.get(exceptionType);
+		if (isCatching == null) {
+			isCatching = false;
+			for (Class clazz : types) {
+				if (clazz != null && clazz.isAssignableFrom(exceptionType)) {
+					isCatching = true;
+					break;
+				}
+			}
+			cache.put(exceptionType, isCatching);
+		}
+		return isCatching;
+	}
+
+	private ConcurrentMap<Class<?>, Boolean> getCatchCache() {
+		if (catchCache == null) {
+			if (context == null) {
+				catchCache = new ConcurrentHashMap<>();
+				return catchCache;
+			}
+			ConcurrentMap<Integer, ConcurrentMap<Class<?>, Boolean>> caches = catchCaches.get(context);
+			ConcurrentMap<Class<?>, Boolean> cache = caches.get(id);
+			if (cache == null) {
+				cache = new ConcurrentHashMap<>();
+				ConcurrentMap<Class<?>, Boolean> concurrentCache = caches.putIfAbsent(id, cache);
+				if (concurrentCache != null) {
+					cache = concurrentCache;
+				}
+			}
+			catchCache = cache;
+		}
+		return catchCache;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if(!(o instanceof TryContext))return false;
@@ -42,5 +105,4 @@ public class TryContext {
 	public Class[] getTypes() {
 		return types;
 	}
-
 }
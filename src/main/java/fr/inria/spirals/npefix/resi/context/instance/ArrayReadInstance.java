@@ -18,15 +18,33 @@ public class ArrayReadInstance<T> extends AbstractInstance<T> {
 
 	@Override
 	public T getValue() {
-		Object o = CallChecker.getCurrentMethodContext().getVariables().get(variableName);
+		Object o = CallChecker.getCurrentMethodContext().getVariable(variableName);
 		return (T) o;
 	}
 
 
 
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		ArrayReadInstance<?> that = (ArrayReadInstance<?>) o;
+
+		if (index != that.index)
+			return false;
+		return variableName != null ?
+				variableName.equals(that.variableName) :
+				that.variableName == null;
+	}
+
 	@Override
 	public int hashCode() {
-		return variableName != null ? variableName.hashCode() : 0;
+		int result = variableName != null ? variableName.hashCode() : 0;
+		result = 31 * result + index;
+		return result;
 	}
 
 	@Override
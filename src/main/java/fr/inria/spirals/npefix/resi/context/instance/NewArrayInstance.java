@@ -82,6 +82,7 @@ public class NewArrayInstance<T> extends AbstractInstance<T> {
 	public int hashCode() {
 		int result = clazz != null ? clazz.hashCode() : 0;
 		result = 31 * result + level;
+		result = 31 * result + values.hashCode();
 		return result;
 	}
 
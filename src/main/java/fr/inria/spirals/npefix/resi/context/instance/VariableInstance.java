@@ -15,7 +15,7 @@ public class  VariableInstance<T> extends AbstractInstance<T> {
 	}
 	@Override
 	public T getValue() {
-		Object o = CallChecker.getCurrentMethodContext().getVariables().get(variableName);
+		Object o = CallChecker.getCurrentMethodContext().getVariable(variableName);
 		return (T) o;
 	}
 
@@ -0,0 +1,11 @@
+package fr.inria.spirals.npefix.resi.exception;
+
+/**
+ * Thrown by the hooks in the thread of a lapse abandoned after its timeout
+ */
+public class LapseCancelled extends NPEFixError {
+
+	public LapseCancelled() {
+		super("The lapse is cancelled after its timeout");
+	}
+}
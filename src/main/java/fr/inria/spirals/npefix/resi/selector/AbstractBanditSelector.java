@@ -0,0 +1,138 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.strategies.NoStrat;
+import fr.inria.spirals.npefix.resi.strategies.Strategy;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static fr.inria.spirals.npefix.resi.context.Decision.DecisionType.BEST;
+import static fr.inria.spirals.npefix.resi.context.Decision.DecisionType.NEW;
+
+/**
+ * Selects the decisions as the arms of a multi-armed bandit: a decision
+ * is rewarded when the lapses that use it pass.
+ *
+ * The statistics are indexed by the id of the decisions, a reward update
+ * is O(1) and a selection is O(k) with k the size of the search space.
+ */
+public abstract class AbstractBanditSelector extends AbstractSelector {
+
+	// indexed by the id of the decisions
+	protected int[] counts = new int[64];
+	protected int[] rewards = new int[64];
+	private BitSet knownDecisions = new BitSet();
+	private List<Decision> searchSpace = new ArrayList<>();
+
+	@Override
+	public boolean startLaps(Lapse lapse) throws RemoteException {
+		super.startLaps(lapse);
+		return true;
+	}
+
+	private <T> void initDecision(List<Decision<T>> decisions) {
+		for (int i = 0; i < decisions.size(); i++) {
+			Decision decision = decisions.get(i);
+			int id = decision.getId();
+			if (!knownDecisions.get(id)) {
+				knownDecisions.set(id);
+				ensureCapacity(id);
+				searchSpace.add(decision);
+			}
+		}
+	}
+
+	private void ensureCapacity(int id) {
+		if (id < counts.length) {
+			return;
+		}
+		int length = Math.max(counts.length * 2, id + 1);
+		counts = Arrays.copyOf(counts, length);
+		rewards = Arrays.copyOf(rewards, length);
+	}
+
+	/**
+	 * Returns the index of a decision played at least once, the decision
+	 * with the highest index is selected
+	 *
+	 * @param id the id of the decision
+	 * @param nbPlays the number of plays of the decisions of the search space
+	 */
+	protected abstract double getIndex(int id, int nbPlays);
+
+	@Override
+	public List<Strategy> getStrategies() {
+		ArrayList<Strategy> strategies = new ArrayList<>(getAllStrategies());
+		strategies.remove(new NoStrat());
+		return strategies;
+	}
+
+	@Override
+	public Set<Decision> getSearchSpace() {
+		return new HashSet<>(searchSpace);
+	}
+
+	@Override
+	public <T> Decision<T> select(List<Decision<T>> decisions) {
+		initDecision(decisions);
+
+		int nbPlays = 0;
+		for (int i = 0; i < decisions.size(); i++) {
+			int id = decisions.get(i).getId();
+			// the decisions never played are selected first
+			if (counts[id] == 0) {
+				Decision<T> decision = decisions.get(i);
+				decision.setDecisionType(NEW);
+				getCurrentLapse().putMetadata("strategy_selection", "exploration");
+				return decision;
+			}
+			nbPlays += counts[id];
+		}
+
+		Decision<T> bestDecision = null;
+		double maxIndex = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < decisions.size(); i++) {
+			Decision<T> decision = decisions.get(i);
+			double index = getIndex(decision.getId(), nbPlays);
+			if (index > maxIndex) {
+				bestDecision = decision;
+				maxIndex = index;
+			}
+		}
+		bestDecision.setDecisionType(BEST);
+		getCurrentLapse().putMetadata("strategy_selection", "best");
+		return bestDecision;
+	}
+
+	@Override
+	public boolean restartTest(Lapse lapse) {
+		super.restartTest(lapse);
+		int reward = 0;
+		if (lapse.getOracle() != null && lapse.getOracle().isValid()) {
+			reward = 1;
+		}
+		for (int i = 0; i < lapse.getDecisions().size(); i++) {
+			int id = lapse.getDecisions().get(i).getId();
+			ensureCapacity(id);
+			counts[id]++;
+			rewards[id] += reward;
+		}
+		return false;
+	}
+
+	@Override
+	public void reset() throws RemoteException {
+		super.reset();
+		counts = new int[64];
+		rewards = new int[64];
+		knownDecisions = new BitSet();
+		searchSpace = new ArrayList<>();
+	}
+}
@@ -45,6 +45,14 @@ public abstract class AbstractSelector implements Selector {
 		return false;
 	}
 
+	/**
+	 * Makes an already started lapse the current lapse of the selector,
+	 * used when the lapses of several forked JVMs run at the same time
+	 */
+	public void switchLapse(Lapse lapse) {
+		this.currentLapse = lapse;
+	}
+
 	@Override
 	public Lapse getCurrentLapse() {
 		return currentLapse;
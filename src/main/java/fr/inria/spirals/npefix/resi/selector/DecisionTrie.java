@@ -0,0 +1,148 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+import fr.inria.spirals.npefix.resi.context.Decision;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefix trie of the decision sequences explored by a test, the children
+ * of a node are indexed by the interned id of their decision.
+ *
+ * A node is fully explored when all the decisions of the search spaces seen
+ * after it lead to fully explored nodes, the flag is propagated to the
+ * parents when a lapse ends. Selecting the next branch and backtracking
+ * are O(depth).
+ */
+public class DecisionTrie {
+
+	static class Node {
+		private final Node parent;
+		private final Decision decision;
+		private final Map<Integer, Node> children = new HashMap<>();
+		// ids of the decisions of the search spaces seen after this node, null when unknown
+		private Set<Integer> branches;
+		// number of explored children among the branches
+		private int nbExploredBranches = 0;
+		private boolean isExplored = false;
+
+		Node(Node parent, Decision decision) {
+			this.parent = parent;
+			this.decision = decision;
+		}
+
+		Node getChild(Decision decision) {
+			return children.get(decision.getId());
+		}
+
+		Node addChild(Decision decision) {
+			Node child = new Node(this, decision);
+			children.put(decision.getId(), child);
+			return child;
+		}
+
+		<T> void addBranches(List<Decision<T>> decisions) {
+			if (branches == null) {
+				branches = new HashSet<>();
+			}
+			for (Decision<T> decision : decisions) {
+				if (branches.add(decision.getId())) {
+					Node child = getChild(decision);
+					if (child != null && child.isExplored) {
+						nbExploredBranches++;
+					}
+				}
+			}
+		}
+	}
+
+	private final Node root = new Node(null, null);
+	// position of the running lapse in the trie
+	private Node current = root;
+	private boolean isNewBranch = false;
+
+	/**
+	 * Starts a new lapse from the root of the trie
+	 */
+	public void restart() {
+		current = root;
+	}
+
+	/**
+	 * Returns the decision of the running lapse among a search space:
+	 * the decision of the branch in progress, otherwise the first decision
+	 * never taken after the current sequence.
+	 * Returns null and marks the current sequence fully explored when all
+	 * the decisions are explored.
+	 */
+	public <T> Decision<T> next(List<Decision<T>> decisions) {
+		current.addBranches(decisions);
+		isNewBranch = false;
+		for (Decision<T> decision : decisions) {
+			Node child = current.getChild(decision);
+			if (child != null && !child.isExplored) {
+				current = child;
+				return child.decision;
+			}
+		}
+		for (Decision<T> decision : decisions) {
+			if (current.getChild(decision) == null) {
+				current = current.addChild(decision);
+				isNewBranch = true;
+				return decision;
+			}
+		}
+		markExplored(current);
+		return null;
+	}
+
+	/**
+	 * Returns true if the decision of the last call to next was never taken before
+	 */
+	public boolean isNewBranch() {
+		return isNewBranch;
+	}
+
+	/**
+	 * Marks the sequence of decisions of an ended lapse as explored
+	 * and backtracks to the closest sequence with an unexplored branch
+	 */
+	public void addSequence(List<Decision> decisions) {
+		Node node = root;
+		for (int i = 0; i < decisions.size(); i++) {
+			Decision decision = decisions.get(i);
+			Node child = node.getChild(decision);
+			if (child == null) {
+				child = node.addChild(decision);
+			}
+			node = child;
+		}
+		markExplored(node);
+		current = root;
+	}
+
+	public boolean isExplored() {
+		return root.isExplored;
+	}
+
+	private void markExplored(Node node) {
+		while (node != null && !node.isExplored) {
+			node.isExplored = true;
+			Node parent = node.parent;
+			if (parent == null) {
+				return;
+			}
+			if (parent.branches == null || !parent.branches.contains(node.decision.getId())) {
+				return;
+			}
+			parent.nbExploredBranches++;
+			if (parent.nbExploredBranches < parent.branches.size()) {
+				return;
+			}
+			node = parent;
+		}
+	}
+}
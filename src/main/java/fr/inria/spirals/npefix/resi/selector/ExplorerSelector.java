@@ -17,13 +17,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 
 public class ExplorerSelector extends AbstractSelector {
 
-	private Map<String, Set<List<Decision>>> usedDecisionSeq = new HashMap<>();
+	// test (class#method) -> explored decision sequences
+	private Map<String, DecisionTrie> explorations = new HashMap<>();
 	private Map<Location, Set<Decision>> decisions = new HashMap<>();
-	private Map<String, Stack<Decision>> stackDecision  = new HashMap<>();
 	private String currentTestKey;
 	private List<Strategy> strategies;
 
@@ -40,15 +39,19 @@ public class ExplorerSelector extends AbstractSelector {
 	public boolean startLaps(Lapse lapse) throws RemoteException {
 		super.startLaps(lapse);
 		this.currentTestKey = getCurrentLapse().getTestClassName() + "#" + getCurrentLapse().getTestName();
-		if(!stackDecision.containsKey(currentTestKey)) {
-			stackDecision.put(currentTestKey, new Stack<Decision>());
-		}
-		if(!usedDecisionSeq.containsKey(currentTestKey)) {
-			usedDecisionSeq.put(currentTestKey, new HashSet<List<Decision>>());
+		if(!explorations.containsKey(currentTestKey)) {
+			explorations.put(currentTestKey, new DecisionTrie());
 		}
+		explorations.get(currentTestKey).restart();
 		return true;
 	}
 
+	@Override
+	public void switchLapse(Lapse lapse) {
+		super.switchLapse(lapse);
+		this.currentTestKey = lapse.getTestClassName() + "#" + lapse.getTestName();
+	}
+
 	private <T> void initDecision(List<Decision<T>> decisions) {
 
 		for (int i = 0; i < decisions.size(); i++) {
@@ -84,28 +87,17 @@ public class ExplorerSelector extends AbstractSelector {
 		try {
 			initDecision(decisions);
 
-			for (Decision decision : stackDecision.get(currentTestKey)) {
-				if (decisions.contains(decision)) {
-					return decision;
-				}
+			DecisionTrie exploration = explorations.get(currentTestKey);
+			Decision<T> decision = exploration.next(decisions);
+			if (decision == null) {
+				throw new NoMoreDecision();
 			}
-
-			getCurrentLapse().putMetadata("strategy_selection", "exploration");
-
-			List<Decision> otherDecision = new ArrayList<>();
-			otherDecision.addAll(stackDecision.get(currentTestKey));
-
-			for (Decision decision : decisions) {
-				otherDecision.add(decision);
-				if (!usedDecisionSeq.get(currentTestKey).contains(otherDecision)) {
-					decision.setUsed(true);
-					decision.setDecisionType(Decision.DecisionType.NEW);
-					stackDecision.get(currentTestKey).push(decision);
-					return decision;
-				}
-				otherDecision.remove(decision);
+			if (exploration.isNewBranch()) {
+				getCurrentLapse().putMetadata("strategy_selection", "exploration");
+				decision.setUsed(true);
+				decision.setDecisionType(Decision.DecisionType.NEW);
 			}
-			throw new NoMoreDecision();
+			return decision;
 		} catch (Throwable e) {
 			if (!(e instanceof NoMoreDecision)) {
 				e.printStackTrace();
@@ -120,38 +112,14 @@ public class ExplorerSelector extends AbstractSelector {
 		if(lapse.getDecisions().isEmpty()) {
 			return false;
 		}
-		usedDecisionSeq.get(currentTestKey).add(lapse.getDecisions());
-
-		stackDecision.put(currentTestKey, new Stack<Decision>());
-		for (int i = 0; i < lapse.getDecisions().size(); i++) {
-			Decision decision = lapse.getDecisions().get(i);
-			stackDecision.get(currentTestKey).add(decision);
-		}
-
-		Decision lastDecision = stackDecision.get(currentTestKey).pop();
-
-		List<Decision> otherDecision = new ArrayList<>();
-		otherDecision.addAll(stackDecision.get(currentTestKey));
-
-		Set<Decision> decisions = this.decisions.get(lastDecision.getLocation());
-		for (Decision decision : decisions) {
-			otherDecision.add(decision);
-			if (!usedDecisionSeq.get(currentTestKey).contains(otherDecision)) {
-				return false;
-			}
-			otherDecision.remove(decision);
-		}
-		if (!stackDecision.get(currentTestKey).isEmpty()) {
-			stackDecision.get(currentTestKey).pop();
-		}
+		explorations.get(currentTestKey).addSequence(lapse.getDecisions());
 		return false;
 	}
 
 	@Override
 	public void reset() throws RemoteException {
 		super.reset();
-		stackDecision = new HashMap<>();
-		usedDecisionSeq = new HashMap<>();
+		explorations = new HashMap<>();
 		decisions = new HashMap<>();
 	}
 }
@@ -9,11 +9,11 @@ import fr.inria.spirals.npefix.resi.strategies.Strategy;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static fr.inria.spirals.npefix.resi.context.Decision.DecisionType.BEST;
@@ -23,8 +23,10 @@ import static fr.inria.spirals.npefix.resi.context.Decision.DecisionType.RANDOM;
 public class GreedySelector extends AbstractSelector {
 
 	private double epsilon;
-	private Map<Decision<?>, Integer> counts = new HashMap<>();
-	private Map<Decision<?>, Double> values = new HashMap<>();
+	// indexed by the id of the decisions
+	private BitSet knownDecisions = new BitSet();
+	private int[] counts = new int[64];
+	private double[] values = new double[64];
 	private Set<Decision<?>> usedDecisions = new HashSet<>();
 	private List<Decision<?>> unusedDecisions  = new ArrayList<>();
 
@@ -41,14 +43,24 @@ public class GreedySelector extends AbstractSelector {
 	private <T> void initDecision(List<Decision<T>> decisions) {
 		for (int i = 0; i < decisions.size(); i++) {
 			Decision decision = decisions.get(i);
-			if(!counts.containsKey(decision)) {
-				counts.put(decision, 0);
-				values.put(decision, 0.0);
+			int id = decision.getId();
+			if(!knownDecisions.get(id)) {
+				knownDecisions.set(id);
+				ensureCapacity(id);
 				unusedDecisions.add(decision);
 			}
 		}
 	}
 
+	private void ensureCapacity(int id) {
+		if (id < counts.length) {
+			return;
+		}
+		int length = Math.max(counts.length * 2, id + 1);
+		counts = Arrays.copyOf(counts, length);
+		values = Arrays.copyOf(values, length);
+	}
+
 	@Override
 	public List<Strategy> getStrategies() {
 		ArrayList<Strategy> strategies = new ArrayList<>(getAllStrategies());
@@ -86,7 +98,7 @@ public class GreedySelector extends AbstractSelector {
 			Decision bestDecision = null;
 			for (int i = 0; i < decisions.size(); i++) {
 				Decision decision = decisions.get(i);
-				double value = values.get(decision);
+				double value = values[decision.getId()];
 				if(value > maxValue) {
 					bestDecision = decision;
 					maxValue = value;
@@ -126,9 +138,11 @@ public class GreedySelector extends AbstractSelector {
 		for (int i = 0; i < lapse.getDecisions().size(); i++) {
 			Decision decision =  lapse.getDecisions().get(i);
 
-			int count = counts.get(decision) + 1;
-			counts.put(decision, count);
-			double value = values.get(decision);
+			int id = decision.getId();
+			ensureCapacity(id);
+			int count = counts[id] + 1;
+			counts[id] = count;
+			double value = values[id];
 			int reward = 0;
 			if(lapse.getOracle() != null &&
 					lapse.getOracle().isValid()) {
@@ -137,7 +151,7 @@ public class GreedySelector extends AbstractSelector {
 
 			double newValue = Math.min(1, ((count - 1) / (float) count) * value + (1 / (float) count) * reward);
 			//System.out.println(decision.toString() + " " + newValue + " " + reward);
-			values.put(decision, newValue);
+			values[id] = newValue;
 		}
 		return false;
 		//return !laps.getOracle().wasSuccessful();
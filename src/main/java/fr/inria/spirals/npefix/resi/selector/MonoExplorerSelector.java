@@ -32,6 +32,12 @@ public class MonoExplorerSelector extends AbstractSelector {
 		return true;
 	}
 
+	@Override
+	public void switchLapse(Lapse lapse) {
+		super.switchLapse(lapse);
+		this.currentTestKey = lapse.getTestClassName() + "#" + lapse.getTestName();
+	}
+
 	private <T> void initDecision(List<Decision<T>> decisions) {
 		for (int i = 0; i < decisions.size(); i++) {
 			Decision decision = decisions.get(i);
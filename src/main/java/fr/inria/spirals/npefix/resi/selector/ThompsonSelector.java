@@ -0,0 +1,47 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+import fr.inria.spirals.npefix.resi.RandomGenerator;
+
+import java.util.Random;
+
+/**
+ * Thompson sampling: selects the decision with the highest sample of
+ * the Beta(1 + successes, 1 + failures) posterior of its reward.
+ */
+public class ThompsonSelector extends AbstractBanditSelector {
+
+	@Override
+	protected double getIndex(int id, int nbPlays) {
+		int successes = rewards[id];
+		int failures = counts[id] - successes;
+		return nextBeta(1 + successes, 1 + failures);
+	}
+
+	private static double nextBeta(double alpha, double beta) {
+		double x = nextGamma(alpha);
+		double y = nextGamma(beta);
+		return x / (x + y);
+	}
+
+	/**
+	 * Marsaglia and Tsang method, valid for shape >= 1
+	 */
+	private static double nextGamma(double shape) {
+		Random random = RandomGenerator.getGenerator();
+		double d = shape - 1 / 3.0;
+		double c = 1 / Math.sqrt(9 * d);
+		while (true) {
+			double x;
+			double v;
+			do {
+				x = random.nextGaussian();
+				v = 1 + c * x;
+			} while (v <= 0);
+			v = v * v * v;
+			double u = random.nextDouble();
+			if (Math.log(u) < 0.5 * x * x + d - d * v + d * Math.log(v)) {
+				return d * v;
+			}
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+/**
+ * Selects the decision with the highest upper confidence bound (UCB1):
+ * its mean reward plus sqrt(2 ln(n) / n_i), with n the number of plays of
+ * the search space and n_i the number of plays of the decision.
+ */
+public class UCB1Selector extends AbstractBanditSelector {
+
+	@Override
+	protected double getIndex(int id, int nbPlays) {
+		int count = counts[id];
+		double mean = rewards[id] / (double) count;
+		return mean + Math.sqrt(2 * Math.log(nbPlays) / count);
+	}
+}
@@ -35,6 +35,11 @@ public abstract class AbstractStrategy implements Strategy {
 		return false;
 	}
 
+	@Override
+	public boolean isStaticSearchSpace() {
+		return true;
+	}
+
 
 	public static <T> Instance<T> initClass(Class<T> clazz) {
 		if(clazz == null)
@@ -60,6 +65,9 @@ public abstract class AbstractStrategy implements Strategy {
 		}
 
 		MethodContext vars = CallChecker.getCurrentMethodContext();
+		if(vars == null) {
+			return Collections.EMPTY_MAP;
+		}
 		Map<String, Instance<T>> instances = obtainInstance(clazz, vars.getVariables());
 
 		return instances;
@@ -374,9 +382,17 @@ public abstract class AbstractStrategy implements Strategy {
 		return "";
 	}
 
+	// hash of the simple name, computed once (used by the hash of the decisions)
+	private transient int hash;
+
 	@Override
 	public int hashCode() {
-		return  this.getClass().getSimpleName().hashCode();
+		int h = hash;
+		if (h == 0) {
+			h = this.getClass().getSimpleName().hashCode();
+			hash = h;
+		}
+		return h;
 	}
 
 	@Override
@@ -24,6 +24,12 @@ public abstract class Strat1 extends AbstractStrategy {
 		return true;
 	}
 
+	@Override
+	public boolean isStaticSearchSpace() {
+		// the search space contains the variables of the method context
+		return false;
+	}
+
 	@Override
 	public <T> List<Decision<T>> getSearchSpace(Object value,
 			Class<T> clazz, Location location, MethodContext context) {
@@ -30,6 +30,11 @@ public class Strat4 extends AbstractStrategy {
 		return returnType.equals(ReturnType.VAR);
 	}
 
+	@Override
+	public boolean isStaticSearchSpace() {
+		return !returnType.equals(ReturnType.VAR);
+	}
+
 
 	@Override
 	public boolean isCompatibleAction(ACTION action) {
@@ -92,7 +97,7 @@ public class Strat4 extends AbstractStrategy {
 
 	@Override
 	public int hashCode() {
-		return this.getClass().getSimpleName().hashCode();
+		return 31 * super.hashCode() + returnType.ordinal();
 	}
 
 	@Override
@@ -26,6 +26,13 @@ public interface Strategy extends Comparable<Strategy>, Serializable{
 
 	boolean collectData();
 
+	/**
+	 * Returns true when the search space only depends on the location and
+	 * on the static type, false when it depends on the runtime values
+	 * (e.g. the variables of the method context).
+	 */
+	boolean isStaticSearchSpace();
+
 	<T> List<Decision<T>> getSearchSpace(Object value, Class<T> clazz, Location location, MethodContext context);
 
 	String getPatch (Decision decision);
@@ -0,0 +1,225 @@
+package fr.inria.spirals.npefix.transformer.bytecode;
+
+import fr.inria.spirals.npefix.resi.CallChecker;
+import fr.inria.spirals.npefix.resi.context.LocationTable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inserts the {@link CallChecker#isCalled} hooks in the bytecode of the
+ * classes, the bytecode equivalent of the TargetModifier processor.
+ *
+ * The hook is inserted when the receiver of the dereference is at the top
+ * of the stack, or under a single one-word value: field reads and writes,
+ * invocations with at most one argument (not long or double). The other
+ * dereferences are not instrumented. The hook only returns a replacement of
+ * the receiver, the strategies that skip the dereference are not available
+ * (see {@link CallChecker#setReplacingReceiverOnly}).
+ *
+ * A dereference is instrumented when it is the single dereference of its
+ * name on its line, in the bytecode of the class and in its sources (see
+ * {@link BytecodeLocations}).
+ */
+public class BytecodeInstrumenter {
+
+	private static final String CALL_CHECKER = Type.getInternalName(CallChecker.class);
+	private static final String IS_CALLED = "(Ljava/lang/Object;Ljava/lang/Class;ILjava/lang/String;III)Ljava/lang/Object;";
+
+	private final BytecodeLocations locations;
+
+	public BytecodeInstrumenter(BytecodeLocations locations) {
+		this.locations = locations;
+	}
+
+	/**
+	 * @param className the binary name of the class
+	 */
+	public boolean isToInstrument(String className) {
+		return locations.containsClass(className);
+	}
+
+	public byte[] instrument(byte[] classfile) {
+		ClassReader reader = new ClassReader(classfile);
+		// the hooks do not add branches: the stack map frames stay valid
+		ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+		DerefCounter counter = new DerefCounter();
+		reader.accept(counter, 0);
+		reader.accept(new HookAdder(writer, counter.counts), 0);
+		return writer.toByteArray();
+	}
+
+	private static String getKey(int line, String name) {
+		return line + "#" + name;
+	}
+
+	/**
+	 * Counts the dereferences of each name on each line of a class
+	 */
+	private static class DerefCounter extends ClassVisitor {
+		// line#name -> number of dereferences in the class
+		private final Map<String, Integer> counts = new HashMap<>();
+
+		DerefCounter() {
+			super(Opcodes.ASM7);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			return new MethodVisitor(Opcodes.ASM7) {
+				private int line = -1;
+
+				@Override
+				public void visitLineNumber(int line, Label start) {
+					this.line = line;
+				}
+
+				@Override
+				public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+					if (opcode == Opcodes.GETFIELD || opcode == Opcodes.PUTFIELD) {
+						count(line, name);
+					}
+				}
+
+				@Override
+				public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+					if (opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKEINTERFACE) {
+						count(line, name);
+					}
+				}
+			};
+		}
+
+		private void count(int line, String name) {
+			String key = getKey(line, name);
+			Integer count = counts.get(key);
+			counts.put(key, count == null ? 1 : count + 1);
+		}
+	}
+
+	private class HookAdder extends ClassVisitor {
+		private String className;
+		private boolean isSupported;
+		private final Map<String, Integer> counts;
+
+		HookAdder(ClassVisitor classVisitor, Map<String, Integer> counts) {
+			super(Opcodes.ASM7, classVisitor);
+			this.counts = counts;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			this.className = name.replace('/', '.');
+			// the class literals (ldc) require a class file 49
+			this.isSupported = (version & 0xFFFF) >= Opcodes.V1_5;
+			super.visit(version, access, name, signature, superName, interfaces);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			MethodVisitor methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+			if (methodVisitor == null || !isSupported) {
+				return methodVisitor;
+			}
+			return new DerefHookAdder(methodVisitor, "<init>".equals(name));
+		}
+
+		private class DerefHookAdder extends MethodVisitor {
+			private int line = -1;
+			// this cannot be used before the call to the super constructor
+			private boolean isInitialized;
+			private int pendingNews = 0;
+
+			DerefHookAdder(MethodVisitor methodVisitor, boolean isConstructor) {
+				super(Opcodes.ASM7, methodVisitor);
+				this.isInitialized = !isConstructor;
+			}
+
+			@Override
+			public void visitLineNumber(int line, Label start) {
+				this.line = line;
+				super.visitLineNumber(line, start);
+			}
+
+			@Override
+			public void visitTypeInsn(int opcode, String type) {
+				if (opcode == Opcodes.NEW) {
+					pendingNews++;
+				}
+				super.visitTypeInsn(opcode, type);
+			}
+
+			@Override
+			public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+				if (opcode == Opcodes.GETFIELD) {
+					addHook(owner, name, false);
+				} else if (opcode == Opcodes.PUTFIELD && Type.getType(descriptor).getSize() == 1) {
+					addHook(owner, name, true);
+				}
+				super.visitFieldInsn(opcode, owner, name, descriptor);
+			}
+
+			@Override
+			public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+				if (opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKEINTERFACE) {
+					Type[] arguments = Type.getArgumentTypes(descriptor);
+					if (arguments.length == 0) {
+						addHook(owner, name, false);
+					} else if (arguments.length == 1 && arguments[0].getSize() == 1) {
+						addHook(owner, name, true);
+					}
+				} else if (opcode == Opcodes.INVOKESPECIAL && "<init>".equals(name)) {
+					if (pendingNews > 0) {
+						pendingNews--;
+					} else {
+						// call to the super (or this) constructor
+						isInitialized = true;
+					}
+				}
+				super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+			}
+
+			/**
+			 * Replaces the receiver by the result of isCalled
+			 * @param isUnderValue true if the receiver is under a one-word value
+			 */
+			private void addHook(String owner, String name, boolean isUnderValue) {
+				if (!isInitialized || name.contains("$")) {
+					// synthetic members (this$0, access$000, ...)
+					return;
+				}
+				Integer count = counts.get(getKey(line, name));
+				if (count == null || count != 1) {
+					// several dereferences of the name on the line (finally blocks, implicit this, ...)
+					return;
+				}
+				int[] position = locations.get(className, line, name);
+				if (position == null) {
+					return;
+				}
+				int id = LocationTable.register(className, position[0], position[1], position[2]);
+				if (isUnderValue) {
+					super.visitInsn(Opcodes.SWAP);
+				}
+				super.visitLdcInsn(Type.getObjectType(owner));
+				super.visitLdcInsn(id);
+				super.visitLdcInsn(className);
+				super.visitLdcInsn(position[0]);
+				super.visitLdcInsn(position[1]);
+				super.visitLdcInsn(position[2]);
+				super.visitMethodInsn(Opcodes.INVOKESTATIC, CALL_CHECKER, "isCalled", IS_CALLED, false);
+				super.visitTypeInsn(Opcodes.CHECKCAST, owner);
+				if (isUnderValue) {
+					super.visitInsn(Opcodes.SWAP);
+				}
+			}
+		}
+	}
+}
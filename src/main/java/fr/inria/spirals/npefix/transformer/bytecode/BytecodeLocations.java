@@ -0,0 +1,121 @@
+package fr.inria.spirals.npefix.transformer.bytecode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Source positions of the dereferences of the project, indexed as the
+ * bytecode sees them: class, line and name of the field or of the method.
+ *
+ * The order of the dereferences of a line in the bytecode does not follow
+ * the sources (implicit this, copies of the finally blocks, ...): a
+ * dereference is only located when it is the single dereference of its
+ * name on its line. The hooks inserted in the bytecode receive the same
+ * locations as the hooks inserted in the sources, the patches are
+ * generated from them.
+ */
+public class BytecodeLocations {
+
+	// className#line#name -> [line, start, end of the target] of the dereferences, null for a dereference of this
+	private final Map<String, List<int[]>> positions = new HashMap<>();
+	private final Set<String> classNames = new HashSet<>();
+
+	/**
+	 * @param className the binary name of the innermost class of the dereference
+	 * @param line a line of the dereference
+	 */
+	public void add(String className, int line, String name, int targetLine, int targetStart, int targetEnd) {
+		addPosition(className, line, name, new int[] {targetLine, targetStart, targetEnd});
+	}
+
+	/**
+	 * Adds a dereference that is not instrumented but that the bytecode
+	 * contains (this, outer this): the dereferences of the same name on the
+	 * line cannot be located
+	 */
+	public void addNotInstrumented(String className, int line, String name) {
+		addPosition(className, line, name, null);
+	}
+
+	private void addPosition(String className, int line, String name, int[] position) {
+		classNames.add(className);
+		String key = getKey(className, line, name);
+		List<int[]> list = positions.get(key);
+		if (list == null) {
+			list = new ArrayList<>(1);
+			positions.put(key, list);
+		}
+		list.add(position);
+	}
+
+	/**
+	 * Returns the line, the start and the end of the target of the
+	 * dereference, null if unknown or ambiguous
+	 */
+	public int[] get(String className, int line, String name) {
+		List<int[]> list = positions.get(getKey(className, line, name));
+		if (list == null || list.size() != 1 || list.get(0) == null) {
+			return null;
+		}
+		return list.get(0).clone();
+	}
+
+	public boolean containsClass(String className) {
+		return classNames.contains(className);
+	}
+
+	public void save(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			for (Map.Entry<String, List<int[]>> entry : positions.entrySet()) {
+				for (int[] position : entry.getValue()) {
+					out.writeUTF(entry.getKey());
+					out.writeBoolean(position != null);
+					if (position != null) {
+						for (int value : position) {
+							out.writeInt(value);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	public static BytecodeLocations load(File file) throws IOException {
+		BytecodeLocations locations = new BytecodeLocations();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while (true) {
+				String key;
+				try {
+					key = in.readUTF();
+				} catch (EOFException e) {
+					break;
+				}
+				String[] split = key.split("#");
+				if (in.readBoolean()) {
+					locations.add(split[0], Integer.parseInt(split[1]), split[2],
+							in.readInt(), in.readInt(), in.readInt());
+				} else {
+					locations.addNotInstrumented(split[0], Integer.parseInt(split[1]), split[2]);
+				}
+			}
+		}
+		return locations;
+	}
+
+	private static String getKey(String className, int line, String name) {
+		return className + "#" + line + "#" + name;
+	}
+}
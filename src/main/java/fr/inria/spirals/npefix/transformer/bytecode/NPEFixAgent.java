@@ -0,0 +1,34 @@
+package fr.inria.spirals.npefix.transformer.bytecode;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+
+/**
+ * Java agent that instruments the classes of the project when they are
+ * loaded: -javaagent:npefix.jar=&lt;file of the {@link BytecodeLocations}&gt;
+ */
+public class NPEFixAgent {
+
+	public static void premain(String args, Instrumentation instrumentation) throws IOException {
+		final BytecodeInstrumenter instrumenter = new BytecodeInstrumenter(BytecodeLocations.load(new File(args)));
+		instrumentation.addTransformer(new ClassFileTransformer() {
+			@Override
+			public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+					ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+				if (className == null || !instrumenter.isToInstrument(className.replace('/', '.'))) {
+					return null;
+				}
+				try {
+					return instrumenter.instrument(classfileBuffer);
+				} catch (Throwable e) {
+					// the class is loaded without the hooks
+					e.printStackTrace();
+					return null;
+				}
+			}
+		});
+	}
+}
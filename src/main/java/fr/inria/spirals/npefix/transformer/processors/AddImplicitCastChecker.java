@@ -94,22 +94,16 @@ public class AddImplicitCastChecker extends AbstractProcessor<CtTypedElement>{
 		nbImplicitCast++;
 
 		CtStatement output = (CtStatement) parent;
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
-
 		CtExpression target = (CtExpression) getFactory().Core().clone(element);
 		target.addTypeCast(element.getType());
 
 		CtInvocation invocation = ProcessorUtility
-				.createStaticCall(getFactory(),
+				.createLocatedCall(getFactory(),
 						CallChecker.class,
 						"isCalled",
+						ProcessorUtility.createLocationArguments(getFactory(), element, element.getPosition()),
 						target,
-						ProcessorUtility.createCtTypeElement(parentType),
-						lineNumber,
-						sourceStart,
-						sourceEnd);
+						ProcessorUtility.createCtTypeElement(parentType));
 		target.setParent(invocation);
 		invocation.setPosition(element.getPosition());
 		invocation.setType(parentType);
@@ -131,14 +125,12 @@ public class AddImplicitCastChecker extends AbstractProcessor<CtTypedElement>{
 			element = variableAssignment.getAssignment();
 		}
 		if(element.getParent() instanceof CtAssignment) {
-			CtInvocation beforeDerefInvocation = ProcessorUtility.createStaticCall(getFactory(),
+			CtInvocation beforeDerefInvocation = ProcessorUtility.createLocatedCall(getFactory(),
 					CallChecker.class,
 					"beforeDeref",
+					ProcessorUtility.createLocationArguments(getFactory(), invocation, invocation.getPosition()),
 					target,
-					ProcessorUtility.createCtTypeElement(parentType),
-					lineNumber,
-					sourceStart,
-					sourceEnd);
+					ProcessorUtility.createCtTypeElement(parentType));
 
 			final CtIf encaps = getFactory().Core().createIf();
 			encaps.setPosition(element.getPosition());
@@ -3,8 +3,8 @@ package fr.inria.spirals.npefix.transformer.processors;
 import fr.inria.spirals.npefix.resi.CallChecker;
 import spoon.reflect.code.CtArrayRead;
 import spoon.reflect.code.CtAssignment;
+import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtInvocation;
-import spoon.reflect.code.CtLiteral;
 
 /**
  * Encapsulate array access in our framework
@@ -22,19 +22,15 @@ public class ArrayRead extends spoon.processing.AbstractProcessor<CtArrayRead> {
 
 	@Override
 	public void process(CtArrayRead e) {
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(e.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(e.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(e.getPosition().getSourceEnd());
+		CtExpression[] location = ProcessorUtility.createLocationArguments(getFactory(), e, e.getPosition());
 
-		CtInvocation arrayAccess = ProcessorUtility.createStaticCall(getFactory(),
+		CtInvocation arrayAccess = ProcessorUtility.createLocatedCall(getFactory(),
 				CallChecker.class,
 				"arrayAccess",
+				location,
 				e.getTarget().clone(),
 				e.getIndexExpression(),
-				ProcessorUtility.createCtTypeElement(e.getType()),
-				lineNumber,
-				sourceStart,
-				sourceEnd);
+				ProcessorUtility.createCtTypeElement(e.getType()));
 		e.replace(arrayAccess);
 	}
 }
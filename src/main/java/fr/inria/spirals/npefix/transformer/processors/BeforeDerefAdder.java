@@ -20,7 +20,6 @@ import spoon.reflect.code.CtFieldWrite;
 import spoon.reflect.code.CtIf;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLambda;
-import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtLocalVariable;
 import spoon.reflect.code.CtLoop;
 import spoon.reflect.code.CtReturn;
@@ -205,18 +204,14 @@ public class BeforeDerefAdder extends AbstractProcessor<CtTargetedExpression>{
 				ctTargetType = getFactory().Code().createLiteral(null);
 			}
 
-			CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(target.getPosition().getLine());
-			CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(target.getPosition().getSourceStart());
-			CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(target.getPosition().getSourceEnd());
+			CtExpression[] location = ProcessorUtility.createLocationArguments(getFactory(), element, target.getPosition());
 
-			CtInvocation beforeDerefInvocation = ProcessorUtility.createStaticCall(getFactory(),
+			CtInvocation beforeDerefInvocation = ProcessorUtility.createLocatedCall(getFactory(),
 					CallChecker.class,
 					"beforeDeref",
+					location,
 					target,
-					ctTargetType,
-					lineNumber,
-					sourceStart,
-					sourceEnd);
+					ctTargetType);
 
 			final CtIf encaps = getFactory().Core().createIf();
 			CtElement directParent = element.getParent();
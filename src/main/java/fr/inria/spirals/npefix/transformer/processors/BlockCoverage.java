@@ -1,11 +1,12 @@
 package fr.inria.spirals.npefix.transformer.processors;
 
 import fr.inria.spirals.npefix.resi.CallChecker;
+import fr.inria.spirals.npefix.resi.CoverageRecorder;
 import fr.inria.spirals.npefix.resi.context.Location;
 import spoon.processing.AbstractProcessor;
 import spoon.reflect.code.CtBlock;
 import spoon.reflect.code.CtInvocation;
-import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtSuperAccess;
 import spoon.reflect.code.CtSwitch;
 import spoon.reflect.code.CtThisAccess;
@@ -59,10 +60,6 @@ public class BlockCoverage extends AbstractProcessor<CtBlock> {
 			}
 		}
 
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
-
 		counterInstrumentation++;
 		boolean isTypeMember = element.getParent() instanceof CtTypeMember;
 		if (isTypeMember) {
@@ -70,13 +67,16 @@ public class BlockCoverage extends AbstractProcessor<CtBlock> {
 		}
 		counterBlock++;
 
+		CtExpression[] arguments = ProcessorUtility.createLocationArguments(getFactory(), element, element.getPosition());
 		CtInvocation blockCoverage = ProcessorUtility.createStaticCall(getFactory(),
 				BlockCoverage.class,
 				"aBlock",
 				getFactory().createLiteral(isTypeMember),
-				lineNumber,
-				sourceStart,
-				sourceEnd);
+				arguments[0],
+				arguments[1],
+				arguments[2],
+				arguments[3],
+				arguments[4]);
 
 		// handle this() and super()
 		if (element.getParent() instanceof CtConstructor
@@ -89,6 +89,16 @@ public class BlockCoverage extends AbstractProcessor<CtBlock> {
 
 	}
 
+	/**
+	 * Records the execution of a block in the {@link CoverageRecorder}
+	 */
+	public static void aBlock(boolean isExecutableBlock, int blockId, String className, int line, int sourceStart, int sourceEnd) {
+		CoverageRecorder.hit(blockId, isExecutableBlock, className, line, sourceStart, sourceEnd);
+	}
+
+	/**
+	 * Writes the execution of a block in the CSV files (code instrumented by older versions)
+	 */
 	public static void aBlock(boolean isExecutableBlock, int line, int sourceStart, int sourceEnd) {
 		Location location = CallChecker.getLocation(line, sourceStart, sourceEnd);
 		final String output = new Date().getTime() + "\t" + location.getClassName() + "\t" + location.getLine() + "\t" + location.getSourceStart() + "\t" + location.getSourceEnd();
@@ -124,11 +124,11 @@ public class ConstructorEncapsulation extends AbstractProcessor<CtConstructor> {
 		CtExpression methodType = methodType = ProcessorUtility.createCtTypeElement(ctConstructor.getType());
 		methodType.setType(getFactory().Type().createReference(Class.class));
 
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(ctConstructor.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(ctConstructor.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(ctConstructor.getPosition().getSourceEnd());
+		CtLiteral<String> methodName = getFactory().Code().createLiteral("<init>");
+		CtExpression[] location = ProcessorUtility.createLocationArguments(getFactory(), ctConstructor, ctConstructor.getPosition());
 
-		CtConstructorCall ctx = getFactory().Code().createConstructorCall(methodContextRef, methodType, lineNumber, sourceStart, sourceEnd);
+		CtConstructorCall ctx = getFactory().Code().createConstructorCall(methodContextRef,
+				ProcessorUtility.withLocation(location, methodType, methodName));
 
 		List<CtLiteral> args = new ArrayList<>();
 
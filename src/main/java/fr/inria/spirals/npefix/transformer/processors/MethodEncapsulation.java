@@ -1,6 +1,5 @@
 package fr.inria.spirals.npefix.transformer.processors;
 
-import fr.inria.spirals.npefix.resi.CallChecker;
 import fr.inria.spirals.npefix.resi.context.Decision;
 import fr.inria.spirals.npefix.resi.context.MethodContext;
 import fr.inria.spirals.npefix.resi.exception.ForceReturn;
@@ -186,11 +185,13 @@ public class MethodEncapsulation extends AbstractProcessor<CtMethod> {
 		}
 		methodType.setType(getFactory().Type().createReference(Class.class));
 
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(ctMethod.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(ctMethod.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(ctMethod.getPosition().getSourceEnd());
+		CtLiteral<String> methodName = getFactory().Code().createLiteral(ctMethod.getSimpleName());
+		// the variables of the method are collected before the creation of the context
+		CtLiteral<Integer> nbVariables = getFactory().Code().createLiteral(ProcessorUtility.getNbVariableSlots(ctMethod));
+		CtExpression[] location = ProcessorUtility.createLocationArguments(getFactory(), ctMethod, ctMethod.getPosition());
 
-		CtConstructorCall ctx = getFactory().Code().createConstructorCall(methodContextRef, methodType, lineNumber, sourceStart, sourceEnd);
+		CtConstructorCall ctx = getFactory().Code().createConstructorCall(methodContextRef,
+				ProcessorUtility.withLocation(location, methodType, methodName, nbVariables));
 
 		List<CtLiteral> args = new ArrayList<>();
 
@@ -208,24 +209,14 @@ public class MethodEncapsulation extends AbstractProcessor<CtMethod> {
 			CtParameter ctParameter = parameters.get(i);
 
 
-			CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-			CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-			CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
-
 			CtVariableAccess variableRead = getFactory().Code().createVariableRead(ctParameter.getReference(), false);
 
-			CtLiteral<String> variableName = getFactory().Code()
-					.createLiteral(variableRead.getVariable().toString());
-
-			CtInvocation invoc = ProcessorUtility.createStaticCall(getFactory(),
-					CallChecker.class,
+			CtInvocation invoc = ProcessorUtility.createVariableCall(getFactory(),
 					"varInit",
+					element,
 					variableRead,
-					variableName,
-					lineNumber,
-					sourceStart,
-					sourceEnd);
-			invoc.setPosition(element.getPosition());
+					variableRead.getVariable().toString(),
+					element.getPosition());
 
 			element.getBody().insertBegin(invoc);
 		}
@@ -259,10 +250,6 @@ public class MethodEncapsulation extends AbstractProcessor<CtMethod> {
 				continue;
 			}
 
-			CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-			CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-			CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
-
 			boolean isStatic = ctField.hasModifier(ModifierKind.STATIC);
 			if(ctField.getType() == null) {
 				isStatic = true;
@@ -273,17 +260,12 @@ public class MethodEncapsulation extends AbstractProcessor<CtMethod> {
 						.getTarget())
 						.setAccessedType(declaringType.getReference());
 			}
-			CtLiteral<String> variableName = getFactory().Code()
-					.createLiteral(variableRead.getVariable().toString());
-			CtInvocation invoc = ProcessorUtility.createStaticCall(getFactory(),
-					CallChecker.class,
+			CtInvocation invoc = ProcessorUtility.createVariableCall(getFactory(),
 					"varInit",
+					element,
 					variableRead,
-					variableName,
-					lineNumber,
-					sourceStart,
-					sourceEnd);
-			invoc.setPosition(element.getPosition());
+					variableRead.getVariable().toString(),
+					element.getPosition());
 			element.getBody().insertBegin(invoc);
 		}
 	}
@@ -294,22 +276,12 @@ public class MethodEncapsulation extends AbstractProcessor<CtMethod> {
 		}
 		CtThisAccess thisAccess = getFactory().Code().createThisAccess(element.getDeclaringType().getReference());
 
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
-
-		CtLiteral<String> variableName = getFactory().Code()
-				.createLiteral("this");
-
-		CtInvocation invoc = ProcessorUtility.createStaticCall(getFactory(),
-				CallChecker.class,
+		CtInvocation invoc = ProcessorUtility.createVariableCall(getFactory(),
 				"varInit",
+				element,
 				thisAccess,
-				variableName,
-				lineNumber,
-				sourceStart,
-				sourceEnd);
-		invoc.setPosition(element.getPosition());
+				"this",
+				element.getPosition());
 		element.getBody().insertBegin(invoc);
 	}
 }
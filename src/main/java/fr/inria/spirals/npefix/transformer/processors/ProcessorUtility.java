@@ -1,5 +1,7 @@
 package fr.inria.spirals.npefix.transformer.processors;
 
+import fr.inria.spirals.npefix.resi.CallChecker;
+import fr.inria.spirals.npefix.resi.context.LocationTable;
 import spoon.reflect.code.BinaryOperatorKind;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtFieldAccess;
@@ -8,6 +10,12 @@ import spoon.reflect.code.CtTargetedExpression;
 import spoon.reflect.code.CtTypeAccess;
 import spoon.reflect.code.CtUnaryOperator;
 import spoon.reflect.code.UnaryOperatorKind;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtConstructor;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtArrayTypeReference;
 import spoon.reflect.reference.CtExecutableReference;
@@ -16,11 +24,15 @@ import spoon.reflect.reference.CtTypeParameterReference;
 import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.visitor.filter.AbstractFilter;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 public class ProcessorUtility {
 
+    private static final String VARIABLE_SLOTS = "npefix.variableSlots";
+
     public static CtInvocation createStaticCall(Factory factory, Class<?> clazz, String methodName, CtExpression...arguments) {
         CtTypeReference<?> classReference = factory.Type().createReference(clazz);
         CtExecutableReference execRef = factory.Core().createExecutableReference();
@@ -34,6 +46,120 @@ public class ProcessorUtility {
         return factory.Code().createInvocation(typeAccess, execRef, arguments);
     }
 
+    /**
+     * Creates a static call with the location arguments appended to the arguments
+     */
+    public static CtInvocation createLocatedCall(Factory factory, Class<?> clazz, String methodName, CtExpression[] location, CtExpression...arguments) {
+        return createStaticCall(factory, clazz, methodName, withLocation(location, arguments));
+    }
+
+    /**
+     * Appends the location arguments to the arguments
+     */
+    public static CtExpression[] withLocation(CtExpression[] location, CtExpression...arguments) {
+        CtExpression[] allArguments = new CtExpression[arguments.length + location.length];
+        System.arraycopy(arguments, 0, allArguments, 0, arguments.length);
+        System.arraycopy(location, 0, allArguments, arguments.length, location.length);
+        return allArguments;
+    }
+
+    /**
+     * Creates the location arguments of a CallChecker hook:
+     * location id, class name, line, source start and source end.
+     * The location id is allocated in the {@link LocationTable}.
+     */
+    public static CtExpression[] createLocationArguments(Factory factory, CtElement element, SourcePosition position) {
+        CtType parentType = element.getParent(CtType.class);
+        String className = parentType.getQualifiedName();
+        int locationId = LocationTable.register(className,
+                position.getLine(),
+                position.getSourceStart(),
+                position.getSourceEnd());
+        return new CtExpression[] {
+                factory.Code().createLiteral(locationId),
+                factory.Code().createLiteral(className),
+                factory.Code().createLiteral(position.getLine()),
+                factory.Code().createLiteral(position.getSourceStart()),
+                factory.Code().createLiteral(position.getSourceEnd())
+        };
+    }
+
+    /**
+     * Returns the slot of a variable in the frame of the method (or constructor)
+     * that contains the element, -1 when the element is not in a method with a context.
+     * The same variable name always receives the same slot in a method.
+     */
+    public static int getVariableSlot(CtElement element, String variableName) {
+        CtExecutable executable = getFrameExecutable(element);
+        if (executable == null) {
+            return -1;
+        }
+        Map<String, Integer> slots = getVariableSlots(executable);
+        Integer slot = slots.get(variableName);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(variableName, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the number of slots allocated in the frame of a method
+     */
+    public static int getNbVariableSlots(CtExecutable executable) {
+        return getVariableSlots(executable).size();
+    }
+
+    private static Map<String, Integer> getVariableSlots(CtExecutable executable) {
+        Map<String, Integer> slots = (Map<String, Integer>) executable.getMetadata(VARIABLE_SLOTS);
+        if (slots == null) {
+            slots = new HashMap<>();
+            executable.putMetadata(VARIABLE_SLOTS, slots);
+        }
+        return slots;
+    }
+
+    private static CtExecutable getFrameExecutable(CtElement element) {
+        CtExecutable executable;
+        if (element instanceof CtExecutable) {
+            executable = (CtExecutable) element;
+        } else {
+            executable = element.getParent(CtExecutable.class);
+        }
+        // the lambdas and the initializers do not have a method context
+        if (executable instanceof CtMethod || executable instanceof CtConstructor) {
+            return executable;
+        }
+        return null;
+    }
+
+    /**
+     * Creates the call that stores the value of a variable in the frame of the method
+     */
+    public static CtInvocation createVariableCall(Factory factory, String methodName, CtElement element, CtExpression value, String variableName, SourcePosition position) {
+        int slot = getVariableSlot(element, variableName);
+        CtExpression[] arguments;
+        if (slot == -1) {
+            arguments = new CtExpression[] {
+                    value,
+                    factory.Code().createLiteral(variableName)
+            };
+        } else {
+            arguments = new CtExpression[] {
+                    value,
+                    factory.Code().createLiteral(slot),
+                    factory.Code().createLiteral(variableName)
+            };
+        }
+        CtInvocation invocation = createStaticCall(factory, CallChecker.class, methodName, withLocation(new CtExpression[] {
+                factory.Code().createLiteral(position.getLine()),
+                factory.Code().createLiteral(position.getSourceStart()),
+                factory.Code().createLiteral(position.getSourceEnd())
+        }, arguments));
+        invocation.setPosition(position);
+        return invocation;
+    }
+
     public static boolean isStatic(CtTargetedExpression element) {
         if (element instanceof CtFieldAccess<?> &&
                 ((CtFieldAccess) element).getVariable().isStatic())
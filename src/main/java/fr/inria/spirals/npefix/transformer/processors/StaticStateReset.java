@@ -0,0 +1,171 @@
+package fr.inria.spirals.npefix.transformer.processors;
+
+import fr.inria.spirals.npefix.resi.StaticStateRegistry;
+import fr.inria.spirals.npefix.transformer.utils.IConstants;
+import spoon.processing.AbstractProcessor;
+import spoon.reflect.code.CtBlock;
+import spoon.reflect.code.CtExpression;
+import spoon.reflect.code.CtLiteral;
+import spoon.reflect.code.CtNewArray;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.declaration.CtAnonymousExecutable;
+import spoon.reflect.declaration.CtClass;
+import spoon.reflect.declaration.CtEnum;
+import spoon.reflect.declaration.CtEnumValue;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.CtInterface;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.CtTypeMember;
+import spoon.reflect.declaration.ModifierKind;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Adds to each class a method that reinitializes its static fields, and
+ * registers the class in the {@link StaticStateRegistry} at the end of its
+ * static initialization.
+ *
+ * The reset method replays the initializers of the non final static fields
+ * in their declaration order. The classes whose state cannot be reset (a
+ * final static field initialized with an object, a static block, an enum
+ * with a mutable field) are registered as not resettable: the lapses then
+ * load the project in a new class loader.
+ */
+@SuppressWarnings("all")
+public class StaticStateReset extends AbstractProcessor<CtType> {
+
+	private Date start;
+	private int classNumber = 0;
+
+	@Override
+	public void init() {
+		this.start = new Date();
+	}
+
+	@Override
+	public void processingDone() {
+		System.out.println("StaticStateReset # Class: " + classNumber + " in " + (new Date().getTime() - start.getTime()) + "ms");
+	}
+
+	@Override
+	public boolean isToBeProcessed(CtType candidate) {
+		if (!(candidate instanceof CtClass) && !(candidate instanceof CtInterface)) {
+			return false;
+		}
+		// the anonymous and local classes (and their member classes) cannot declare static fields
+		if (candidate.isAnonymous() || candidate.getParent(CtBlock.class) != null) {
+			return false;
+		}
+		// the inner classes cannot declare static fields
+		if (!candidate.isTopLevel() && !isStatic(candidate)) {
+			return false;
+		}
+		return super.isToBeProcessed(candidate);
+	}
+
+	private boolean isStatic(CtType type) {
+		return type.hasModifier(ModifierKind.STATIC)
+				|| type instanceof CtEnum
+				|| type instanceof CtInterface
+				|| type.getDeclaringType() instanceof CtInterface;
+	}
+
+	@Override
+	public void process(CtType element) {
+		boolean resettable = !(element instanceof CtEnum) || !hasMutableConstant((CtEnum) element);
+		CtBlock body = getFactory().Core().createBlock();
+		for (CtTypeMember member : (List<CtTypeMember>) element.getTypeMembers()) {
+			if (member instanceof CtEnumValue || !member.hasModifier(ModifierKind.STATIC)
+					&& !(element instanceof CtInterface)) {
+				continue;
+			}
+			if (member instanceof CtField) {
+				CtField field = (CtField) member;
+				if (field.hasModifier(ModifierKind.FINAL) || element instanceof CtInterface) {
+					// the object of a final field can be modified but not reinitialized
+					resettable &= field.getDefaultExpression() instanceof CtLiteral;
+				} else {
+					body.addStatement(createFieldReset(field));
+				}
+			} else if (member instanceof CtAnonymousExecutable) {
+				// a static block can assign final fields or have side effects, it is not replayed
+				resettable = false;
+			}
+		}
+		if (resettable && body.getStatements().isEmpty()) {
+			// no static state
+			return;
+		}
+		classNumber++;
+
+		if (resettable) {
+			CtMethod reset = getFactory().Core().createMethod();
+			reset.setSimpleName(IConstants.Method.RESET_STATIC_STATE);
+			reset.setModifiers(new HashSet<>(Arrays.asList(ModifierKind.PRIVATE, ModifierKind.STATIC)));
+			reset.setType(getFactory().Type().voidPrimitiveType());
+			reset.setBody(body);
+			element.addMethod(reset);
+		}
+
+		// a field and not a static block: the interfaces cannot declare static blocks
+		CtField registered = getFactory().Core().createField();
+		registered.setSimpleName(IConstants.Var.STATIC_STATE_REGISTERED);
+		if (element instanceof CtInterface) {
+			registered.setModifiers(new HashSet<>(Arrays.asList(ModifierKind.PUBLIC, ModifierKind.STATIC, ModifierKind.FINAL)));
+		} else {
+			registered.setModifiers(new HashSet<>(Arrays.asList(ModifierKind.PRIVATE, ModifierKind.STATIC, ModifierKind.FINAL)));
+		}
+		registered.setType(getFactory().Type().booleanPrimitiveType());
+		registered.setDefaultExpression(ProcessorUtility.createStaticCall(getFactory(),
+				StaticStateRegistry.class,
+				"register",
+				ProcessorUtility.createCtTypeElement(element.getReference()),
+				getFactory().Code().createLiteral(resettable)));
+		// the class is registered at the end of its static initialization
+		element.addTypeMemberAt(element.getTypeMembers().size(), registered);
+	}
+
+	/**
+	 * Returns true if the enum or the body of one of its constants declares
+	 * a non final field: the state of the constants cannot be reset
+	 */
+	private boolean hasMutableConstant(CtEnum element) {
+		List<CtField> fields = element.getElements(new TypeFilter<>(CtField.class));
+		for (CtField field : fields) {
+			if (!field.hasModifier(ModifierKind.FINAL) && !field.hasModifier(ModifierKind.STATIC)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private CtStatement createFieldReset(CtField field) {
+		CtExpression value;
+		if (field.getDefaultExpression() != null) {
+			value = field.getDefaultExpression().clone();
+			if (value instanceof CtNewArray) {
+				// an array initializer is only valid in a declaration
+				value.setImplicit(false);
+			}
+		} else {
+			value = getDefaultValue(field);
+		}
+		return getFactory().Code().createVariableAssignment(field.getReference(), true, value);
+	}
+
+	private CtExpression getDefaultValue(CtField field) {
+		if (!field.getType().isPrimitive()) {
+			return getFactory().Code().createLiteral(null);
+		}
+		if (field.getType().equals(getFactory().Type().booleanPrimitiveType())) {
+			return getFactory().Code().createLiteral(false);
+		}
+		// 0 is assignable to all the numeric types and to char
+		return getFactory().Code().createLiteral(0);
+	}
+}
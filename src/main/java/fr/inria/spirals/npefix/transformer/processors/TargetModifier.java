@@ -9,7 +9,6 @@ import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtFieldAccess;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLambda;
-import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtLoop;
 import spoon.reflect.code.CtStatement;
 import spoon.reflect.code.CtStatementList;
@@ -126,18 +125,14 @@ public class TargetModifier extends AbstractProcessor<CtTargetedExpression>{
 				return;
 			}
 
-			CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(target.getPosition().getLine());
-			CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(target.getPosition().getSourceStart());
-			CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(target.getPosition().getSourceEnd());
+			CtExpression[] location = ProcessorUtility.createLocationArguments(getFactory(), element, target.getPosition());
 
-			CtInvocation invoc = ProcessorUtility.createStaticCall(getFactory(),
+			CtInvocation invoc = ProcessorUtility.createLocatedCall(getFactory(),
 					CallChecker.class,
 					"isCalled",
+					location,
 					target,
-					ctTargetType,
-					lineNumber,
-					sourceStart,
-					sourceEnd);
+					ctTargetType);
 			invoc.setPosition(element.getPosition());
 			invoc.setType(targetType);
 
@@ -154,22 +149,18 @@ public class TargetModifier extends AbstractProcessor<CtTargetedExpression>{
 		if (element.getParent(CtField.class) != null) {
 			return false;
 		}
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(target.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(target.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(target.getPosition().getSourceEnd());
+		CtExpression[] location = ProcessorUtility.createLocationArguments(getFactory(), element, target.getPosition());
 
 		if(target instanceof CtArrayRead) {
             target = target.clone();
             target.getTypeCasts().clear();
 
-			CtInvocation beforeCall = ProcessorUtility.createStaticCall(getFactory(),
+			CtInvocation beforeCall = ProcessorUtility.createLocatedCall(getFactory(),
 					CallChecker.class,
 					"beforeCalled",
+					location,
 					target,
-					arg,
-					lineNumber,
-					sourceStart,
-					sourceEnd);
+					arg);
             beforeCall.setType(target.getType());
 			beforeCall.setPosition(element.getPosition());
 
@@ -218,14 +209,12 @@ public class TargetModifier extends AbstractProcessor<CtTargetedExpression>{
             target.getTypeCasts().clear();
 
 
-			CtInvocation beforeCall = ProcessorUtility.createStaticCall(getFactory(),
+			CtInvocation beforeCall = ProcessorUtility.createLocatedCall(getFactory(),
 					CallChecker.class,
 					"beforeCalled",
+					location,
 					target,
-					arg,
-					lineNumber,
-					sourceStart,
-					sourceEnd);
+					arg);
 
             beforeCall.setType(target.getType());
             for (int k = 0; k < target.getTypeCasts().size(); k++) {
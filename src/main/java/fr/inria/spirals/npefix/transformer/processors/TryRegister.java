@@ -9,6 +9,7 @@ import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLambda;
 import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtLocalVariable;
+import spoon.reflect.code.CtNewArray;
 import spoon.reflect.code.CtStatement;
 import spoon.reflect.code.CtTry;
 import spoon.reflect.code.CtVariableAccess;
@@ -113,9 +114,13 @@ public class TryRegister extends AbstractProcessor<CtTry> {
 		args.add(ProcessorUtility.createCtTypeElement(parentClass.getReference()));
 		//args.add(getFactory().Code().createCodeSnippetExpression(parentClass.getQualifiedName() + ".class"));
 
+		// the catch types are class literals, they are resolved once by the JVM
+		CtNewArray types = getFactory().Core().createNewArray();
+		types.setType(getFactory().Type().createArrayReference(getFactory().Type().createReference(Class.class)));
 		for (CtTypeReference type : catchables) {
-			args.add(getFactory().Code().createLiteral(type.getQualifiedName()));
+			types.addElement(ProcessorUtility.createCtTypeElement(type));
 		}
+		args.add(types);
 		CtConstructorCall ctx = getFactory().Code().createConstructorCall(tryTypeRef, args.toArray(new CtExpression[]{}));
 		ctx.setPosition(element.getPosition());
 
@@ -8,7 +8,6 @@ import spoon.reflect.code.CtBlock;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLambda;
-import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtLoop;
 import spoon.reflect.code.CtReturn;
 import spoon.reflect.code.CtStatement;
@@ -55,21 +54,12 @@ public class VarRetrieveAssign extends AbstractProcessor<CtAssignment>  {
 			}*/
 			assigned = ProcessorUtility.removeUnaryOperator(assigned, false);
 
-			CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-			CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-			CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
-
-			CtLiteral<String> variableName = getFactory().Code().createLiteral(assigned.toString());
-
-			CtInvocation invoc = ProcessorUtility.createStaticCall(getFactory(),
-					CallChecker.class,
+			CtInvocation invoc = ProcessorUtility.createVariableCall(getFactory(),
 					"varAssign",
+					element,
 					assigned,
-					variableName,
-					lineNumber,
-					sourceStart,
-					sourceEnd);
-			invoc.setPosition(element.getPosition());
+					assigned.toString(),
+					element.getPosition());
 
 
 			if (element.getParent() instanceof CtStatementList) {
@@ -7,7 +7,6 @@ import spoon.reflect.code.CtFor;
 import spoon.reflect.code.CtForEach;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLambda;
-import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtLocalVariable;
 import spoon.reflect.code.CtNewClass;
 import spoon.reflect.reference.CtTypeReference;
@@ -60,22 +59,12 @@ public class VarRetrieveInit extends AbstractProcessor<CtLocalVariable>  {
 
 		CtExpression defaultExpression = element.getDefaultExpression().clone();
 
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
-
-		CtLiteral<String> variableName = getFactory().Code()
-				.createLiteral(element.getSimpleName());
-
-		CtInvocation invoc = ProcessorUtility.createStaticCall(getFactory(),
-				CallChecker.class,
+		CtInvocation invoc = ProcessorUtility.createVariableCall(getFactory(),
 				"varInit",
+				element,
 				defaultExpression,
-				variableName,
-				lineNumber,
-				sourceStart,
-				sourceEnd);
-		invoc.setPosition(element.getPosition());
+				element.getSimpleName(),
+				element.getPosition());
 
 		if(defaultExpression !=null &&
 				defaultExpression.getType() != null &&
@@ -8,7 +8,6 @@ import spoon.reflect.code.CtFor;
 import spoon.reflect.code.CtForEach;
 import spoon.reflect.code.CtIf;
 import spoon.reflect.code.CtInvocation;
-import spoon.reflect.code.CtLiteral;
 import spoon.reflect.code.CtStatement;
 import spoon.reflect.code.CtVariableRead;
 import spoon.reflect.declaration.CtElement;
@@ -61,9 +60,7 @@ public class VariableFor extends AbstractProcessor<CtVariableRead<?>> {
 	public void process(CtVariableRead<?> element) {
 		CtElement parent = element.getParent();
 
-		CtLiteral<Integer> lineNumber = getFactory().Code().createLiteral(element.getPosition().getLine());
-		CtLiteral<Integer> sourceStart = getFactory().Code().createLiteral(element.getPosition().getSourceStart());
-		CtLiteral<Integer> sourceEnd = getFactory().Code().createLiteral(element.getPosition().getSourceEnd());
+		CtExpression[] location = ProcessorUtility.createLocationArguments(getFactory(), element, element.getPosition());
 
 		CtMethod ctMethod = element.getParent(CtMethod.class);
 
@@ -79,14 +76,12 @@ public class VariableFor extends AbstractProcessor<CtVariableRead<?>> {
 			methodType = getFactory().Code().createLiteral(null);
 		}
 
-		CtInvocation ifInvoc = ProcessorUtility.createStaticCall(getFactory(),
+		CtInvocation ifInvoc = ProcessorUtility.createLocatedCall(getFactory(),
 				CallChecker.class,
 				"beforeDeref",
+				location,
 				element,
-				methodType,
-				lineNumber,
-				sourceStart,
-				sourceEnd);
+				methodType);
 		ifInvoc.setPosition(element.getPosition());
 
 		CtIf encaps = getFactory().Core().createIf();
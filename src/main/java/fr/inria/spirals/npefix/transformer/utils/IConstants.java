@@ -56,6 +56,7 @@ public interface IConstants{
 		public static final String TRY_CONTEXT_FINALLY_COMPUTE = "finallyCompute";
 		public static final String FAKE_INITIALIZER_INITALIZE = "initialize";
 		public static final String TRY_CONTEXT_ALL_THROWS = "allThrows";
+		public static final String RESET_STATIC_STATE = "_npefix_resetStaticState";
 	}
 	public interface Var{
 		public static final String DEFAULT_THROWABLE = "_bcornu_t";
@@ -64,6 +65,7 @@ public interface IConstants{
 		public static final String METHODE_CONTEXT = "_bcornu_methode_context";
 		public static final String CONSTRUCTOR_CONTEXT = "_bcornu_constructor_context";
 		public static final String THROW_CONTEXT = "_bcornu_throw_context";
+		public static final String STATIC_STATE_REGISTERED = "_npefix_staticStateRegistered";
 	}
 	
 }
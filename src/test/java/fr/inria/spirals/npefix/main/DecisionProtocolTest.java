@@ -0,0 +1,70 @@
+package fr.inria.spirals.npefix.main;
+
+import fr.inria.spirals.npefix.resi.context.instance.PrimitiveInstance;
+import fr.inria.spirals.npefix.resi.strategies.ReturnType;
+import fr.inria.spirals.npefix.resi.strategies.Strat4;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DecisionProtocolTest {
+
+	private Object copy(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		DecisionProtocol.writeObject(out, object);
+		out.close();
+		return DecisionProtocol.readObject(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+
+	@Test
+	public void testAcceptedClasses() throws Exception {
+		List<Object> objects = new ArrayList<>();
+		objects.add(new Strat4(ReturnType.VAR));
+		objects.add(new PrimitiveInstance<Object>(new int[] {1, 2}));
+		objects.add(new PrimitiveInstance<Object>("value"));
+		assertEquals(objects.size(), ((List) copy(objects)).size());
+
+		assertTrue(DecisionProtocol.isAccepted("[[I"));
+		assertTrue(DecisionProtocol.isAccepted("[Ljava.lang.String;"));
+		assertFalse(DecisionProtocol.isAccepted("[Ljava.util.Date;"));
+	}
+
+	@Test
+	public void testRejectedClass() throws Exception {
+		try {
+			copy(new PrimitiveInstance<Object>(new Date()));
+			fail("java.util.Date must be rejected");
+		} catch (InvalidClassException e) {
+			assertTrue(e.getMessage().contains("java.util.Date"));
+		}
+	}
+
+	@Test
+	public void testInvalidObjectSize() throws Exception {
+		for (int length : new int[] {-1, DecisionProtocol.MAX_OBJECT_SIZE + 1}) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			new DataOutputStream(bytes).writeInt(length);
+			try {
+				DecisionProtocol.readObject(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+				fail("the size " + length + " must be rejected");
+			} catch (ProtocolException e) {
+				assertTrue(e.getMessage().contains(length + ""));
+			}
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package fr.inria.spirals.npefix.main.all;
+
+import fr.inria.spirals.npefix.config.Config;
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.oracle.TestOracle;
+import fr.inria.spirals.npefix.resi.strategies.Strat1A;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.Result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExplorationBudgetTest {
+
+	@After
+	public void tearDown() {
+		Config.reset();
+	}
+
+	@Test
+	public void testPatchBudget() {
+		Config.CONFIG.setPatchBudget(1);
+		ExplorationBudget budget = new ExplorationBudget();
+		budget.start();
+		assertFalse(budget.isExhausted());
+
+		// a passing lapse without decision is not a patch
+		Lapse lapse = new Lapse(null, new String[0]);
+		lapse.setOracle(new TestOracle(new Result()));
+		budget.addLapse(lapse);
+		assertFalse(budget.isExhausted());
+
+		lapse.addDecision(new Decision<Object>(new Strat1A(), new Location("Foo", 1, 10, 20)));
+		budget.addLapse(lapse);
+		assertEquals(1, budget.getNbPatches());
+		assertTrue(budget.isExhausted());
+	}
+
+	@Test
+	public void testLapseTimeout() {
+		Config.CONFIG.setTimeoutIteration(5);
+		ExplorationBudget budget = new ExplorationBudget();
+		budget.start();
+		assertEquals(5000, budget.getLapseTimeout("Foo#a"));
+
+		// adapted to the duration of the first run
+		budget.addDuration("Foo#a", 300);
+		budget.addDuration("Foo#a", 10);
+		assertEquals(3000, budget.getLapseTimeout("Foo#a"));
+
+		budget.addDuration("Foo#b", 1);
+		assertEquals(1000, budget.getLapseTimeout("Foo#b"));
+	}
+}
@@ -0,0 +1,66 @@
+package fr.inria.spirals.npefix.main.all;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class InMemoryClassLoaderTest {
+
+	private InMemoryCompiler compiler;
+	private File binOutput;
+
+	@Before
+	public void setUp() throws Exception {
+		compiler = new InMemoryCompiler(System.getProperty("java.class.path"), 8);
+		compiler.compile(Collections.singletonMap("foo.Bar", "package foo;\n"
+				+ "public class Bar {\n"
+				+ "    public String toString() { return \"in memory\"; }\n"
+				+ "}"));
+
+		// binOutput: a class not instrumented and a resource of the project
+		binOutput = Files.createTempDirectory("npefix-bin").toFile();
+		File foo = new File(binOutput, "foo");
+		foo.mkdirs();
+		Files.write(new File(foo, "Bar.class").toPath(), new byte[] {0});
+		Files.write(new File(foo, "data.txt").toPath(), "resource".getBytes("UTF-8"));
+	}
+
+	private InMemoryClassLoader getClassLoader() throws Exception {
+		return new InMemoryClassLoader(compiler.getClasses(),
+				new URL[] {binOutput.toURI().toURL()},
+				getClass().getClassLoader());
+	}
+
+	@Test
+	public void testLoadClass() throws Exception {
+		InMemoryClassLoader classLoader = getClassLoader();
+		// the class of the class store is loaded before the class file of binOutput
+		Class<?> bar = classLoader.loadClass("foo.Bar");
+		assertEquals(classLoader, bar.getClassLoader());
+		assertEquals("in memory", bar.newInstance().toString());
+		assertEquals(bar, classLoader.loadClass("foo.Bar"));
+	}
+
+	@Test
+	public void testResources() throws Exception {
+		InMemoryClassLoader classLoader = getClassLoader();
+		assertNotNull(classLoader.getResource("foo/data.txt"));
+		try (InputStream resource = classLoader.getResourceAsStream("foo/data.txt")) {
+			assertEquals("resource", IOUtils.toString(resource, "UTF-8"));
+		}
+		// the bytecode of the class store, not the class file of binOutput
+		try (InputStream bytecode = classLoader.getResourceAsStream("foo/Bar.class")) {
+			assertArrayEquals(compiler.getClasses().get("foo.Bar"), IOUtils.toByteArray(bytecode));
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package fr.inria.spirals.npefix.main.all;
+
+import org.junit.Test;
+import spoon.SpoonException;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryCompilerTest {
+
+	private InMemoryCompiler getCompiler() {
+		return new InMemoryCompiler(System.getProperty("java.class.path"), 8);
+	}
+
+	@Test
+	public void testCompile() throws Exception {
+		Map<String, String> sources = new HashMap<>();
+		sources.put("foo.Bar", "package foo;\n"
+				+ "public class Bar {\n"
+				+ "    public static class Inner {}\n"
+				+ "    public int get() { return new Baz().get(); }\n"
+				+ "}");
+		sources.put("foo.Baz", "package foo;\n"
+				+ "class Baz { int get() { return 42; } }");
+		InMemoryCompiler compiler = getCompiler();
+		compiler.compile(sources);
+
+		// the class files of the nested types are in the class store
+		assertEquals(3, compiler.getClasses().size());
+		assertTrue(compiler.getClasses().containsKey("foo.Bar"));
+		assertTrue(compiler.getClasses().containsKey("foo.Bar$Inner"));
+		assertTrue(compiler.getClasses().containsKey("foo.Baz"));
+	}
+
+	@Test(expected = SpoonException.class)
+	public void testCompilationError() {
+		getCompiler().compile(Collections.singletonMap("foo.Bar", "package foo;\npublic class Bar { int get() { return \"\"; } }"));
+	}
+
+	@Test
+	public void testWriteClasses() throws Exception {
+		InMemoryCompiler compiler = getCompiler();
+		compiler.compile(Collections.singletonMap("foo.Bar", "package foo;\npublic class Bar {}"));
+
+		File directory = Files.createTempDirectory("npefix-classes").toFile();
+		compiler.writeClasses(directory);
+		File classFile = new File(directory, "foo" + File.separator + "Bar.class");
+		assertTrue(classFile.exists());
+		assertArrayEquals(compiler.getClasses().get("foo.Bar"), Files.readAllBytes(classFile.toPath()));
+	}
+}
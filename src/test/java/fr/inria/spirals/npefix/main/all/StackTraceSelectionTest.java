@@ -0,0 +1,61 @@
+package fr.inria.spirals.npefix.main.all;
+
+import org.junit.Test;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.factory.Factory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class StackTraceSelectionTest {
+
+	private Factory getFactory() {
+		spoon.Launcher spoon = new spoon.Launcher();
+		spoon.addInputResource("src/test/resources/stacktrace/");
+		spoon.buildModel();
+		return spoon.getFactory();
+	}
+
+	private Set<String> getNames(Set<CtExecutable<?>> executables) {
+		Set<String> names = new HashSet<>();
+		for (CtExecutable<?> executable : executables) {
+			names.add(executable.getSimpleName());
+		}
+		return names;
+	}
+
+	private StackTraceSelection getSelection(int radius, StackTraceElement... frames) {
+		StackTraceSelection selection = new StackTraceSelection(radius);
+		selection.addStackTrace(frames);
+		return selection;
+	}
+
+	private StackTraceElement frame(String className, int line) {
+		return new StackTraceElement(className, "method", "Calls.java", line);
+	}
+
+	@Test
+	public void testSelectFrames() {
+		StackTraceSelection selection = getSelection(0, frame("Calls", 12), frame("Calls", 8));
+		assertEquals(new HashSet<>(Arrays.asList("second", "third")), getNames(selection.select(getFactory())));
+	}
+
+	@Test
+	public void testSelectRadius() {
+		StackTraceSelection selection = getSelection(1, frame("Calls", 12));
+		Set<CtExecutable<?>> selected = selection.select(getFactory());
+		// the callers of third: second and the method of the anonymous class
+		assertEquals(new HashSet<>(Arrays.asList("second", "third", "run")), getNames(selected));
+	}
+
+	@Test
+	public void testNestedExecutables() {
+		// the method of the anonymous class is processed with callback
+		StackTraceSelection selection = getSelection(0, frame("Calls$1", 19), frame("Calls", 16));
+		Set<CtExecutable<?>> selected = selection.select(getFactory());
+		assertEquals(new HashSet<>(Arrays.asList("callback")), getNames(selected));
+	}
+}
@@ -0,0 +1,41 @@
+package fr.inria.spirals.npefix.main.all;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestIndexTest {
+
+	@Test
+	public void testIndex() throws Exception {
+		File directory = Files.createTempDirectory("npefix-test-index").toFile();
+		String path = TestIndexTest.class.getName().replace('.', '/') + ".class";
+		File classFile = new File(directory, path);
+		classFile.getParentFile().mkdirs();
+		try (InputStream in = TestIndexTest.class.getClassLoader().getResourceAsStream(path)) {
+			Files.copy(in, classFile.toPath());
+		}
+		URLClassLoader classLoader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, TestIndexTest.class.getClassLoader());
+		File indexFile = new File(directory, "tests.properties");
+
+		List<String> tests = new TestIndex(indexFile).getTests(classLoader);
+		assertEquals(Collections.singletonList(TestIndexTest.class.getName() + "#testIndex"), tests);
+		assertTrue(indexFile.exists());
+
+		// read from the index
+		assertEquals(tests, new TestIndex(indexFile).getTests(classLoader));
+
+		// the removed class files are removed from the index
+		classFile.delete();
+		assertTrue(new TestIndex(indexFile).getTests(classLoader).isEmpty());
+	}
+}
@@ -0,0 +1,45 @@
+package fr.inria.spirals.npefix.main.all;
+
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.strategies.Strat1A;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestSelectionTest {
+
+	private static final List<String> TESTS = Arrays.asList("Foo#a", "Foo#b", "Foo#c", "Foo#d");
+
+	@Test
+	public void testSelection() {
+		TestSelection selection = new TestSelection(0);
+		// the tests that never ran are selected
+		assertEquals(TESTS, selection.select(TESTS));
+
+		for (String test : TESTS) {
+			Lapse lapse = new Lapse(null, new String[0]);
+			if (test.equals("Foo#b")) {
+				lapse.addDecision(new Decision<Object>(new Strat1A(), new Location("Foo", 1, 10, 20)));
+			}
+			// Foo#c dereferences null without taking a decision
+			selection.record(test, lapse, test.equals("Foo#c"));
+		}
+		assertEquals(Arrays.asList("Foo#b", "Foo#c"), selection.select(TESTS));
+	}
+
+	@Test
+	public void testRegressionSample() {
+		TestSelection selection = new TestSelection(2);
+		for (String test : TESTS) {
+			selection.record(test, new Lapse(null, new String[0]), false);
+		}
+		assertEquals(2, selection.select(TESTS).size());
+
+		assertEquals(TESTS, new TestSelection(-1).select(TESTS));
+	}
+}
@@ -0,0 +1,126 @@
+package fr.inria.spirals.npefix.resi;
+
+import fr.inria.spirals.npefix.resi.context.MethodContext;
+import fr.inria.spirals.npefix.resi.exception.LapseCancelled;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CallCheckerTest {
+
+	@Before
+	public void setUp() {
+		CallChecker.clear();
+	}
+
+	@Test
+	public void testStackPerThread() throws Exception {
+		final MethodContext context = new MethodContext(Object.class, "testStackPerThread", 0, "Foo", 1, 2, 3);
+		final AtomicReference<MethodContext> contextInThread = new AtomicReference<>();
+		final AtomicReference<MethodContext> currentInThread = new AtomicReference<>();
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				currentInThread.set(CallChecker.getCurrentMethodContext());
+				MethodContext threadContext = new MethodContext(Object.class, "run", 1, "Foo", 4, 5, 6);
+				if (CallChecker.getCurrentMethodContext() == threadContext) {
+					contextInThread.set(threadContext);
+				}
+				threadContext.methodEnd();
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertNull(currentInThread.get());
+		assertNotNull(contextInThread.get());
+		assertSame(context, CallChecker.getCurrentMethodContext());
+		assertEquals(1, CallChecker.getStack().size());
+		context.methodEnd();
+		assertNull(CallChecker.getCurrentMethodContext());
+	}
+
+	@Test
+	public void testDisablePerThread() throws Exception {
+		final AtomicReference<Boolean> enableInThread = new AtomicReference<>();
+
+		CallChecker.disable();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				enableInThread.set(CallChecker.isEnable());
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertFalse(CallChecker.isEnable());
+		assertTrue(enableInThread.get());
+		CallChecker.enable();
+		assertTrue(CallChecker.isEnable());
+	}
+
+	@Test
+	public void testVariableSlots() throws Exception {
+		MethodContext context = new MethodContext(Object.class, "testVariableSlots", 2, 2, "Foo", 7, 8, 9);
+		try {
+			CallChecker.varInit("a", 0, "a", 7, 8, 9);
+			CallChecker.varInit("b", 1, "b", 7, 8, 9);
+			CallChecker.varAssign("a2", 0, "a", 7, 8, 9);
+			// slot outside of the frame
+			CallChecker.varInit("c", 4, "c", 7, 8, 9);
+			// slot of another variable
+			CallChecker.varInit("d", 1, "d", 7, 8, 9);
+
+			assertEquals("a2", context.getVariable("a"));
+			assertEquals("b", context.getVariable("b"));
+			assertEquals(4, context.getNbVariables());
+			assertEquals("c", context.getVariables().get("c"));
+			assertEquals("d", context.getVariables().get("d"));
+		} finally {
+			context.methodEnd();
+		}
+	}
+
+	@Test
+	public void testCancelledThread() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		// a lapse that ignores the interruption
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						new MethodContext(Object.class, "loop", 0, "Foo", 1, 2, 3).methodEnd();
+						started.countDown();
+					}
+				} catch (Throwable e) {
+					error.set(e);
+				}
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+		started.await();
+
+		CallChecker.cancel(thread);
+		thread.join(10000);
+		assertFalse(thread.isAlive());
+		assertTrue(error.get() instanceof LapseCancelled);
+
+		// the other threads are not cancelled
+		new MethodContext(Object.class, "testCancelledThread", 0, "Foo", 1, 2, 3).methodEnd();
+		CallChecker.release(thread);
+	}
+}
@@ -0,0 +1,148 @@
+package fr.inria.spirals.npefix.resi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoverageRecorderTest {
+
+	private File output;
+
+	@Before
+	public void setUp() throws IOException {
+		CoverageRecorder.clear();
+		output = File.createTempFile("coverage", ".bin");
+		output.delete();
+	}
+
+	@After
+	public void tearDown() {
+		CoverageRecorder.clear();
+		output.delete();
+	}
+
+	@Test
+	public void testHitsAreFlushedAsDeltas() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			CoverageRecorder.hit(2000, true, "Foo", 1, 10, 20);
+		}
+		CoverageRecorder.hit(5, false, "Foo", 2, 30, 40);
+		assertEquals(3, CoverageRecorder.getHits(2000));
+		assertTrue(CoverageRecorder.isCovered(5));
+		assertFalse(CoverageRecorder.isCovered(6));
+
+		CoverageRecorder.flush(output);
+		CoverageRecorder.hit(5, false, "Foo", 2, 30, 40);
+		CoverageRecorder.flush(output);
+
+		List<CoverageRecorder.BlockHits> blocks = CoverageRecorder.read(output);
+		assertEquals(2, blocks.size());
+		long nbHits = 0;
+		for (CoverageRecorder.BlockHits block : blocks) {
+			if (block.getLocation().getLine() == 1) {
+				assertTrue(block.isExecutableBlock());
+				assertEquals(3, block.getHits());
+			} else {
+				assertFalse(block.isExecutableBlock());
+				assertEquals(2, block.getHits());
+			}
+			nbHits += block.getHits();
+		}
+		assertEquals(5, nbHits);
+	}
+
+	@Test
+	public void testFlushLapses() throws IOException {
+		System.setProperty(CoverageRecorder.OUTPUT_PROPERTY, output.getPath());
+		try {
+			// two lapses that execute the same block
+			CoverageRecorder.hit(3, false, "Foo", 3, 50, 60);
+			CoverageRecorder.flush();
+			CoverageRecorder.hit(3, false, "Foo", 3, 50, 60);
+			CoverageRecorder.hit(3, false, "Foo", 3, 50, 60);
+			CoverageRecorder.flush();
+		} finally {
+			System.clearProperty(CoverageRecorder.OUTPUT_PROPERTY);
+		}
+
+		List<CoverageRecorder.BlockHits> blocks = CoverageRecorder.read(output);
+		assertEquals(1, blocks.size());
+		assertEquals(3, blocks.get(0).getHits());
+	}
+
+	@Test
+	public void testToCsv() throws IOException {
+		CoverageRecorder.hit(1, true, "Foo", 1, 10, 20);
+		CoverageRecorder.hit(1, true, "Foo", 1, 10, 20);
+		CoverageRecorder.hit(2, false, "Foo", 2, 30, 40);
+		CoverageRecorder.flush(output);
+
+		File blockOutput = File.createTempFile("block-output", ".csv");
+		File methodOutput = File.createTempFile("method-output", ".csv");
+		try {
+			CoverageRecorder.toCsv(output, blockOutput, methodOutput);
+			List<String> blockLines = Files.readAllLines(blockOutput.toPath(), Charset.defaultCharset());
+			List<String> methodLines = Files.readAllLines(methodOutput.toPath(), Charset.defaultCharset());
+			assertEquals(3, blockLines.size());
+			assertEquals(2, methodLines.size());
+			assertTrue(methodLines.get(0).endsWith("\tFoo\t1\t10\t20"));
+		} finally {
+			blockOutput.delete();
+			methodOutput.delete();
+		}
+	}
+
+	/**
+	 * Flushes records larger than the buffers of a stream in a shared file
+	 */
+	public static class FlushingJvm {
+		public static void main(String[] args) {
+			File output = new File(args[0]);
+			StringBuilder className = new StringBuilder(args[1]);
+			while (className.length() < 1000) {
+				className.append('x');
+			}
+			for (int i = 0; i < 20; i++) {
+				for (int id = 0; id < 50; id++) {
+					CoverageRecorder.hit(id, false, className.toString(), id, 0, 0);
+				}
+				CoverageRecorder.flush(output);
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentFlushes() throws Exception {
+		int nbJvm = 4;
+		List<Process> processes = new ArrayList<>();
+		for (int i = 0; i < nbJvm; i++) {
+			processes.add(new ProcessBuilder(
+					new File(System.getProperty("java.home"), "bin/java").getPath(),
+					"-cp", System.getProperty("java.class.path"),
+					FlushingJvm.class.getName(),
+					output.getPath(),
+					"Foo" + i).inheritIO().start());
+		}
+		for (Process process : processes) {
+			assertEquals(0, process.waitFor());
+		}
+
+		// the records of the JVMs are not interleaved
+		List<CoverageRecorder.BlockHits> blocks = CoverageRecorder.read(output);
+		assertEquals(nbJvm * 50, blocks.size());
+		for (CoverageRecorder.BlockHits block : blocks) {
+			assertEquals(20, block.getHits());
+		}
+	}
+}
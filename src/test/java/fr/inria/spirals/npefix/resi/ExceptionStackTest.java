@@ -0,0 +1,77 @@
+package fr.inria.spirals.npefix.resi;
+
+import fr.inria.spirals.npefix.resi.context.TryContext;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ExceptionStackTest {
+
+	@Test
+	public void testIsStoppable() {
+		TryContext outer = new TryContext(1, ExceptionStackTest.class, new Class[] {IOException.class});
+		TryContext inner = new TryContext(2, ExceptionStackTest.class, new Class[] {IllegalStateException.class});
+
+		assertTrue(ExceptionStack.isStoppable(IllegalStateException.class));
+		assertTrue(ExceptionStack.isStoppable(FileNotFoundException.class));
+		assertFalse(ExceptionStack.isStoppable(NullPointerException.class));
+
+		inner.catchStart(0);
+		inner.finallyStart(0);
+		assertFalse(ExceptionStack.isStoppable(IllegalStateException.class));
+		assertTrue(ExceptionStack.isStoppable(IOException.class));
+
+		outer.finallyStart(0);
+		assertFalse(ExceptionStack.isStoppable(IOException.class));
+	}
+
+	@Test
+	public void testRecursiveTry() {
+		TryContext outer = new TryContext(3, ExceptionStackTest.class, new Class[] {IOException.class});
+		TryContext inner = new TryContext(3, ExceptionStackTest.class, new Class[] {IOException.class});
+
+		inner.catchStart(0);
+		inner.finallyStart(0);
+		// the finally of the inner try does not unregister the outer try of the same site
+		assertTrue(ExceptionStack.isStoppable(IOException.class));
+
+		outer.finallyStart(0);
+		assertFalse(ExceptionStack.isStoppable(IOException.class));
+	}
+
+	@Test
+	public void testStringTypes() {
+		TryContext context = new TryContext(4, ExceptionStackTest.class, "java.io.IOException");
+
+		assertTrue(context.isCatching(FileNotFoundException.class));
+		assertFalse(context.isCatching(NullPointerException.class));
+		context.finallyStart(0);
+	}
+
+	@Test
+	public void testCatchCacheReleasedWithClassLoader() throws Exception {
+		URL classes = ExceptionStackTest.class.getProtectionDomain().getCodeSource().getLocation();
+		URLClassLoader classLoader = new URLClassLoader(new URL[] {classes}, null);
+		TryContext context = new TryContext(5, classLoader.loadClass(ExceptionStackTest.class.getName()), new Class[] {IOException.class});
+		assertTrue(context.isCatching(FileNotFoundException.class));
+		context.finallyStart(0);
+
+		// the cached answers of the try do not keep its class loader alive
+		WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>(classLoader);
+		classLoader = null;
+		context = null;
+		for (int i = 0; i < 20 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+	}
+}
@@ -0,0 +1,50 @@
+package fr.inria.spirals.npefix.resi;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StaticStateRegistryTest {
+
+	// reset method generated by StaticStateReset
+	private static class Counter {
+		private static int count = 10;
+
+		private static void _npefix_resetStaticState() {
+			count = 10;
+		}
+	}
+
+	@After
+	public void tearDown() {
+		StaticStateRegistry.clear();
+	}
+
+	@Test
+	public void testReset() {
+		StaticStateRegistry.clear();
+		Counter.count++;
+		assertEquals(11, Counter.count);
+		StaticStateRegistry.register(Counter.class);
+		assertEquals(1, StaticStateRegistry.size());
+
+		StaticStateRegistry.reset();
+		assertEquals(10, Counter.count);
+		assertTrue(StaticStateRegistry.isComplete());
+	}
+
+	@Test
+	public void testNotResettable() {
+		StaticStateRegistry.clear();
+		assertFalse(StaticStateRegistry.register(Counter.class, false));
+		assertEquals(0, StaticStateRegistry.size());
+		assertFalse(StaticStateRegistry.isComplete());
+
+		// a new class loader
+		StaticStateRegistry.clear();
+		assertTrue(StaticStateRegistry.isComplete());
+	}
+}
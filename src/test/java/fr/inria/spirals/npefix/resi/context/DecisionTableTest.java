@@ -0,0 +1,56 @@
+package fr.inria.spirals.npefix.resi.context;
+
+import fr.inria.spirals.npefix.resi.context.instance.Instance;
+import fr.inria.spirals.npefix.resi.context.instance.NewInstance;
+import fr.inria.spirals.npefix.resi.context.instance.PrimitiveInstance;
+import fr.inria.spirals.npefix.resi.strategies.ReturnType;
+import fr.inria.spirals.npefix.resi.strategies.Strat2A;
+import fr.inria.spirals.npefix.resi.strategies.Strat4;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class DecisionTableTest {
+
+	private Decision<Object> createNewDecision(int parameter) {
+		NewInstance<Object> instance = new NewInstance<>("foo.Bar",
+				new String[] {"int"},
+				Arrays.<Instance<?>>asList(new PrimitiveInstance<>(parameter)));
+		return new Decision<Object>(new Strat2A(), new Location("Foo", 1, 10, 20), instance);
+	}
+
+	@Test
+	public void testEqualDecisionsShareHashAndId() {
+		Decision<Object> decision = createNewDecision(1);
+		Decision<Object> same = createNewDecision(1);
+
+		assertEquals(decision, same);
+		assertEquals(decision.hashCode(), same.hashCode());
+		assertEquals(decision.getId(), same.getId());
+		assertEquals(decision, DecisionTable.get(decision.getId()));
+	}
+
+	@Test
+	public void testDifferentDecisionsHaveDifferentIds() {
+		Location location = new Location("Foo", 1, 10, 20);
+		Decision<Object> returnNull = new Decision<Object>(new Strat4(ReturnType.NULL), location, new PrimitiveInstance<Object>(null));
+		Decision<Object> returnVoid = new Decision<Object>(new Strat4(ReturnType.VOID), location, new PrimitiveInstance<Object>(null));
+
+		assertNotEquals(returnNull.hashCode(), returnVoid.hashCode());
+		assertNotEquals(returnNull.getId(), returnVoid.getId());
+		assertNotEquals(createNewDecision(1).getId(), createNewDecision(2).getId());
+	}
+
+	@Test
+	public void testInternedDecisionIsACopy() {
+		Decision<Object> decision = createNewDecision(3);
+		int id = decision.getId();
+		decision.setValue(new PrimitiveInstance<Object>(null));
+
+		assertEquals(id, createNewDecision(3).getId());
+		assertNotEquals(id, decision.getId());
+	}
+}
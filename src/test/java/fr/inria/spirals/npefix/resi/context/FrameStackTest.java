@@ -0,0 +1,60 @@
+package fr.inria.spirals.npefix.resi.context;
+
+import fr.inria.spirals.npefix.resi.CallChecker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FrameStackTest {
+
+	private MethodContext[] contexts;
+
+	@Before
+	public void setUp() {
+		CallChecker.clear();
+		contexts = new MethodContext[100];
+		for (int i = 0; i < contexts.length; i++) {
+			contexts[i] = new MethodContext(Object.class, "m" + i, i, "Foo", i, i, i);
+		}
+		CallChecker.clear();
+	}
+
+	@Test
+	public void testPushPop() {
+		FrameStack stack = new FrameStack();
+		for (int i = 0; i < contexts.length; i++) {
+			stack.push(contexts[i]);
+		}
+		assertEquals(100, stack.size());
+		assertSame(contexts[99], stack.peek());
+		assertEquals(Arrays.asList(contexts), stack.toList());
+
+		for (int i = contexts.length - 1; i >= 0; i--) {
+			stack.pop(contexts[i]);
+		}
+		assertEquals(0, stack.size());
+		assertNull(stack.peek());
+	}
+
+	@Test
+	public void testPopNotOnTop() {
+		FrameStack stack = new FrameStack();
+		stack.push(contexts[0]);
+		stack.push(contexts[1]);
+		stack.push(contexts[2]);
+
+		// contexts[2] ended without notification
+		stack.pop(contexts[1]);
+		assertEquals(1, stack.size());
+		assertSame(contexts[0], stack.peek());
+
+		// unknown context
+		stack.pop(contexts[3]);
+		assertEquals(1, stack.size());
+	}
+}
@@ -0,0 +1,75 @@
+package fr.inria.spirals.npefix.resi.context;
+
+import fr.inria.spirals.npefix.resi.context.instance.PrimitiveInstance;
+import fr.inria.spirals.npefix.resi.strategies.ReturnType;
+import fr.inria.spirals.npefix.resi.strategies.Strat4;
+import fr.inria.spirals.npefix.resi.strategies.Strategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class SearchSpaceCacheTest {
+
+	private List<Decision>[] createSearchSpaces(Strategy strategy, Location location) {
+		List<Decision> decisions = new ArrayList<>();
+		decisions.add(new Decision(strategy, location, new PrimitiveInstance(null)));
+		return new List[] {decisions};
+	}
+
+	@Test
+	public void testHitMissAndEviction() {
+		Strategy strategy = new Strat4(ReturnType.NULL);
+		List<Strategy> strategies = Arrays.asList(strategy);
+		Location location1 = new Location("Foo", 1, 10, 20);
+		Location location2 = new Location("Foo", 2, 30, 40);
+		SearchSpaceCache cache = new SearchSpaceCache(1);
+
+		assertNull(cache.get(strategies, null, location1, String.class, Strategy.ACTION.isCalled));
+		cache.put(strategies, null, location1, String.class, Strategy.ACTION.isCalled, createSearchSpaces(strategy, location1));
+		assertNotNull(cache.get(strategies, null, location1, String.class, Strategy.ACTION.isCalled));
+		// the static type is part of the key
+		assertNull(cache.get(strategies, null, location1, Object.class, Strategy.ACTION.isCalled));
+
+		cache.put(strategies, null, location2, String.class, Strategy.ACTION.isCalled, createSearchSpaces(strategy, location2));
+		assertNull(cache.get(strategies, null, location1, String.class, Strategy.ACTION.isCalled));
+
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void testInvalidateOnStrategiesChange() {
+		Strategy strategy = new Strat4(ReturnType.NULL);
+		Location location = new Location("Foo", 1, 10, 20);
+		SearchSpaceCache cache = new SearchSpaceCache(10);
+
+		cache.put(Arrays.<Strategy>asList(strategy), null, location, String.class, Strategy.ACTION.isCalled, createSearchSpaces(strategy, location));
+		// an equal list of strategies keeps the cache
+		assertNotNull(cache.get(Arrays.<Strategy>asList(new Strat4(ReturnType.NULL)), null, location, String.class, Strategy.ACTION.isCalled));
+		assertNull(cache.get(Arrays.<Strategy>asList(new Strat4(ReturnType.NEW)), null, location, String.class, Strategy.ACTION.isCalled));
+	}
+
+	@Test
+	public void testCopiedDecisionsAreUnused() {
+		Decision<Object> decision = new Decision<Object>(new Strat4(ReturnType.NULL), new Location("Foo", 1, 10, 20), new PrimitiveInstance<Object>(null));
+		decision.setUsed(true);
+		decision.increaseNbUse();
+
+		List<Decision<Object>> output = new ArrayList<>();
+		SearchSpaceCache.copyTo(Arrays.<Decision>asList(decision), output);
+
+		assertEquals(decision, output.get(0));
+		assertNotSame(decision, output.get(0));
+		assertFalse(output.get(0).isUsed());
+		assertEquals(0, output.get(0).getNbUse());
+	}
+}
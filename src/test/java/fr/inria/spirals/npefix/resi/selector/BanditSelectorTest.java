@@ -0,0 +1,69 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Lapse;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.oracle.ExceptionOracle;
+import fr.inria.spirals.npefix.resi.oracle.TestOracle;
+import fr.inria.spirals.npefix.resi.strategies.Strat1A;
+import fr.inria.spirals.npefix.resi.strategies.Strat1B;
+import org.junit.Test;
+import org.junit.runner.Result;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BanditSelectorTest {
+
+	private final Location location = new Location("Foo", 1, 10, 20);
+
+	private List<Decision<Object>> getSearchSpace() {
+		return Arrays.<Decision<Object>>asList(
+				new Decision<Object>(new Strat1A(), location),
+				new Decision<Object>(new Strat1B(), location));
+	}
+
+	/**
+	 * Runs a lapse where only the second decision of the search space passes
+	 */
+	private Decision runLapse(Selector selector) throws Exception {
+		Lapse lapse = new Lapse(selector, new String[0]);
+		selector.startLaps(lapse);
+		Decision<Object> decision = selector.select(getSearchSpace());
+		lapse.addDecision(decision);
+		if (decision.equals(getSearchSpace().get(1))) {
+			lapse.setOracle(new TestOracle(new Result()));
+		} else {
+			lapse.setOracle(new ExceptionOracle(new NullPointerException()));
+		}
+		selector.restartTest(lapse);
+		return decision;
+	}
+
+	private void testConvergence(Selector selector) throws Exception {
+		// each decision is tried once first
+		assertEquals(getSearchSpace().get(0), runLapse(selector));
+		assertEquals(getSearchSpace().get(1), runLapse(selector));
+		int nbBest = 0;
+		for (int i = 0; i < 50; i++) {
+			if (runLapse(selector).equals(getSearchSpace().get(1))) {
+				nbBest++;
+			}
+		}
+		assertEquals(2, selector.getSearchSpace().size());
+		assertTrue("the passing decision is mostly selected", nbBest > 40);
+	}
+
+	@Test
+	public void testUCB1() throws Exception {
+		testConvergence(new UCB1Selector());
+	}
+
+	@Test
+	public void testThompson() throws Exception {
+		testConvergence(new ThompsonSelector());
+	}
+}
@@ -0,0 +1,84 @@
+package fr.inria.spirals.npefix.resi.selector;
+
+import fr.inria.spirals.npefix.resi.context.Decision;
+import fr.inria.spirals.npefix.resi.context.Location;
+import fr.inria.spirals.npefix.resi.strategies.Strat1A;
+import fr.inria.spirals.npefix.resi.strategies.Strat1B;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DecisionTrieTest {
+
+	private List<Decision<Object>> getSearchSpace(int line) {
+		Location location = new Location("Foo", line, 10, 20);
+		return Arrays.<Decision<Object>>asList(
+				new Decision<Object>(new Strat1A(), location),
+				new Decision<Object>(new Strat1B(), location));
+	}
+
+	@Test
+	public void testExploration() {
+		DecisionTrie trie = new DecisionTrie();
+		Set<List<Decision>> sequences = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			trie.restart();
+			List<Decision> sequence = new ArrayList<>();
+			sequence.add(trie.next(getSearchSpace(1)));
+			sequence.add(trie.next(getSearchSpace(2)));
+			assertTrue(trie.isNewBranch());
+			trie.addSequence(sequence);
+			sequences.add(sequence);
+		}
+		// all the sequences of the search space are explored once
+		assertEquals(4, sequences.size());
+		assertTrue(trie.isExplored());
+
+		trie.restart();
+		assertNull(trie.next(getSearchSpace(1)));
+	}
+
+	@Test
+	public void testReplay() {
+		DecisionTrie trie = new DecisionTrie();
+		Decision first = trie.next(getSearchSpace(1));
+		trie.next(getSearchSpace(2));
+		trie.addSequence(Arrays.asList(first, getSearchSpace(2).get(0)));
+
+		// the first decision is replayed until its branch is explored
+		trie.restart();
+		assertEquals(first, trie.next(getSearchSpace(1)));
+		assertFalse(trie.isNewBranch());
+		assertEquals(getSearchSpace(2).get(1), trie.next(getSearchSpace(2)));
+		assertFalse(trie.isExplored());
+	}
+
+	@Test
+	public void testChangingSearchSpace() {
+		DecisionTrie trie = new DecisionTrie();
+		List<Decision<Object>> searchSpace = getSearchSpace(1);
+		Decision first = trie.next(searchSpace);
+		trie.next(getSearchSpace(2));
+		trie.addSequence(Arrays.asList(first, getSearchSpace(2).get(0)));
+
+		// the first search space shrinks to the decision in progress
+		trie.restart();
+		assertEquals(first, trie.next(Arrays.asList(searchSpace.get(0))));
+		Decision second = trie.next(Arrays.asList(getSearchSpace(2).get(1)));
+		trie.addSequence(Arrays.asList(first, second));
+
+		// the other decision of the first search space is still unexplored
+		assertFalse(trie.isExplored());
+		trie.restart();
+		assertEquals(searchSpace.get(1), trie.next(searchSpace));
+	}
+}
@@ -0,0 +1,140 @@
+package fr.inria.spirals.npefix.transformer.bytecode;
+
+import fr.inria.spirals.npefix.main.all.BytecodeRepairStrategy;
+import fr.inria.spirals.npefix.main.all.InMemoryClassLoader;
+import fr.inria.spirals.npefix.main.all.InMemoryCompiler;
+import fr.inria.spirals.npefix.resi.CallChecker;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import spoon.reflect.code.CtFieldRead;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BytecodeInstrumenterTest {
+
+	private static final String SOURCE = "src/test/resources/bytecode/Deref.java";
+
+	private byte[] compile() throws Exception {
+		String source = new String(Files.readAllBytes(new File(SOURCE).toPath()), "UTF-8");
+		InMemoryCompiler compiler = new InMemoryCompiler(System.getProperty("java.class.path"), 8);
+		compiler.compile(Collections.singletonMap("Deref", source));
+		return compiler.getClasses().get("Deref");
+	}
+
+	/**
+	 * Returns the hooks of a method: the line, the start and the end of their location
+	 */
+	private List<String> getHooks(byte[] classfile, final String methodName) {
+		final List<String> hooks = new ArrayList<>();
+		new ClassReader(classfile).accept(new ClassVisitor(Opcodes.ASM7) {
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				if (!methodName.equals(name)) {
+					return null;
+				}
+				return new MethodVisitor(Opcodes.ASM7) {
+					private final List<Object> constants = new ArrayList<>();
+
+					@Override
+					public void visitLdcInsn(Object value) {
+						constants.add(value);
+					}
+
+					@Override
+					public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+						if (owner.equals(Type.getInternalName(CallChecker.class)) && name.equals("isCalled")) {
+							hooks.add(constants.subList(constants.size() - 3, constants.size()).toString());
+						}
+					}
+				};
+			}
+		}, 0);
+		return hooks;
+	}
+
+	@Test
+	public void testHookPlacement() throws Exception {
+		BytecodeLocations locations = new BytecodeLocations();
+		locations.add("Deref", 6, "length", 6, 100, 100);
+		locations.add("Deref", 10, "length", 10, 100, 100);
+		locations.add("Deref", 10, "length", 10, 200, 200);
+		locations.addNotInstrumented("Deref", 14, "field");
+		locations.add("Deref", 14, "field", 14, 100, 100);
+		locations.add("Deref", 18, "next", 18, 100, 100);
+		locations.add("Deref", 18, "field", 18, 100, 200);
+		locations.add("Deref", 25, "length", 25, 100, 100);
+
+		byte[] classfile = new BytecodeInstrumenter(locations).instrument(compile());
+
+		assertEquals(Arrays.asList("[6, 100, 100]"), getHooks(classfile, "unique"));
+		assertEquals(Arrays.asList("[18, 100, 100]", "[18, 100, 200]"), getHooks(classfile, "chain"));
+		// several dereferences of the name on the line
+		assertEquals(Collections.emptyList(), getHooks(classfile, "sameLine"));
+		assertEquals(Collections.emptyList(), getHooks(classfile, "implicitThis"));
+		// the finally block is copied in the bytecode
+		assertEquals(Collections.emptyList(), getHooks(classfile, "inFinally"));
+
+		// the instrumented class is valid
+		ClassLoader classLoader = new InMemoryClassLoader(Collections.singletonMap("Deref", classfile),
+				new URL[0], getClass().getClassLoader());
+		Class<?> deref = classLoader.loadClass("Deref");
+		assertEquals(3, deref.getMethod("unique", String.class).invoke(deref.newInstance(), "foo"));
+	}
+
+	@Test
+	public void testLocationMapping() throws Exception {
+		spoon.Launcher spoon = new spoon.Launcher();
+		spoon.addInputResource(SOURCE);
+		spoon.buildModel();
+		CtType<?> type = spoon.getFactory().Type().get("Deref");
+		BytecodeLocations locations = new BytecodeRepairStrategy(new String[] {SOURCE})
+				.getLocations(Collections.<CtType<?>>singletonList(type));
+
+		// the target of the dereference: d.next
+		CtMethod<?> chain = type.getMethodsByName("chain").get(0);
+		CtFieldRead<?> field = chain.getElements(new TypeFilter<>(CtFieldRead.class)).get(0);
+		assertEquals("field", field.getVariable().getSimpleName());
+		SourcePosition target = field.getTarget().getPosition();
+		int[] expected = {target.getLine(), target.getSourceStart(), target.getSourceEnd()};
+		assertEquals(Arrays.toString(expected), Arrays.toString(locations.get("Deref", 18, "field")));
+
+		// this.field and d.field
+		assertNull(locations.get("Deref", 14, "field"));
+		assertNull(locations.get("Deref", 10, "length"));
+
+		byte[] classfile = new BytecodeInstrumenter(locations).instrument(compile());
+		assertEquals(2, getHooks(classfile, "chain").size());
+		assertEquals(Arrays.asList(Arrays.toString(expected)), getHooks(classfile, "chain").subList(1, 2));
+	}
+
+	@Test
+	public void testSaveLocations() throws Exception {
+		BytecodeLocations locations = new BytecodeLocations();
+		locations.add("Deref", 6, "length", 6, 100, 110);
+		locations.addNotInstrumented("Deref", 14, "field");
+		locations.add("Deref", 14, "field", 14, 100, 110);
+
+		File file = File.createTempFile("npefix-bytecode", ".bin");
+		locations.save(file);
+		BytecodeLocations loaded = BytecodeLocations.load(file);
+		assertEquals("[6, 100, 110]", Arrays.toString(loaded.get("Deref", 6, "length")));
+		assertNull(loaded.get("Deref", 14, "field"));
+	}
+}
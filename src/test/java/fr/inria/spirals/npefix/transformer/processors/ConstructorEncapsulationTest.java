@@ -1,5 +1,6 @@
 package fr.inria.spirals.npefix.transformer.processors;
 
+import fr.inria.spirals.npefix.resi.context.LocationTable;
 import org.junit.Test;
 import spoon.Launcher;
 import spoon.reflect.declaration.CtClass;
@@ -20,9 +21,10 @@ public class ConstructorEncapsulationTest {
 
 		CtClass fooTernary = spoon.getFactory().Class().get("Foo");
 		CtConstructor constructor = fooTernary.getConstructor();
+		int locationId = LocationTable.register("Foo", 9, 167, 247);
 		assertEquals("public Foo() {\n"
 				+ "    super();\n"
-				+ "    fr.inria.spirals.npefix.resi.context.ConstructorContext _bcornu_methode_context1 = new fr.inria.spirals.npefix.resi.context.ConstructorContext(Foo.class, 9, 167, 247);\n"
+				+ "    fr.inria.spirals.npefix.resi.context.ConstructorContext _bcornu_methode_context1 = new fr.inria.spirals.npefix.resi.context.ConstructorContext(Foo.class, \"<init>\", " + locationId + ", \"Foo\", 9, 167, 247);\n"
 				+ "    try {\n"
 				+ "        field = null;\n"
 				+ "        array = null;\n"
@@ -0,0 +1,109 @@
+package fr.inria.spirals.npefix.transformer.processors;
+
+import fr.inria.spirals.npefix.resi.StaticStateRegistry;
+import fr.inria.spirals.npefix.transformer.utils.IConstants;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StaticStateResetTest {
+
+	@After
+	public void tearDown() {
+		StaticStateRegistry.clear();
+	}
+
+	private Launcher process() {
+		Launcher spoon = new Launcher();
+		spoon.addInputResource("src/test/resources/staticstate/");
+		spoon.addProcessor(new StaticStateReset());
+		spoon.setSourceOutputDirectory("target/staticstate/src");
+		spoon.run();
+		return spoon;
+	}
+
+	private String getRegistration(CtType type) {
+		CtField field = type.getField(IConstants.Var.STATIC_STATE_REGISTERED);
+		return field.getDefaultExpression().toString();
+	}
+
+	@Test
+	public void testProcessor() {
+		Launcher spoon = process();
+
+		CtType staticState = spoon.getFactory().Type().get("StaticState");
+		List<CtMethod> resets = staticState.getMethodsByName(IConstants.Method.RESET_STATIC_STATE);
+		assertEquals(1, resets.size());
+		// count, name and values, the constant is not reset
+		assertEquals(3, resets.get(0).getBody().getStatements().size());
+		assertTrue(getRegistration(staticState).endsWith("register(StaticState.class, true)"));
+
+		// the state of these types cannot be reset
+		for (String name : new String[] {"FinalState", "StaticBlock", "Mode", "Names"}) {
+			CtType type = spoon.getFactory().Type().get(name);
+			assertTrue(name, type.getMethodsByName(IConstants.Method.RESET_STATIC_STATE).isEmpty());
+			assertTrue(name, getRegistration(type).endsWith("register(" + name + ".class, false)"));
+		}
+
+		// only constants
+		assertNull(spoon.getFactory().Type().get("Constant").getField(IConstants.Var.STATIC_STATE_REGISTERED));
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		process();
+
+		File binOutput = new File("target/staticstate/bin");
+		FileUtils.deleteDirectory(binOutput);
+		binOutput.mkdirs();
+		List<String> args = new ArrayList<>(Arrays.asList(
+				"-cp", System.getProperty("java.class.path"),
+				"-d", binOutput.getPath()));
+		for (File source : FileUtils.listFiles(new File("target/staticstate/src"), new String[] {"java"}, true)) {
+			args.add(source.getPath());
+		}
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		assertEquals(0, javac.run(null, null, null, args.toArray(new String[0])));
+		ClassLoader classLoader = new URLClassLoader(new URL[] {binOutput.toURI().toURL()}, getClass().getClassLoader());
+
+		StaticStateRegistry.clear();
+		Class<?> staticState = Class.forName("StaticState", true, classLoader);
+		assertEquals(1, StaticStateRegistry.size());
+		assertTrue(StaticStateRegistry.isComplete());
+
+		Field count = staticState.getDeclaredField("count");
+		count.setAccessible(true);
+		count.setInt(null, 42);
+		Field values = staticState.getDeclaredField("values");
+		values.setAccessible(true);
+		((int[]) values.get(null))[0] = 42;
+
+		StaticStateRegistry.reset();
+		assertEquals(10, count.getInt(null));
+		assertEquals(1, ((int[]) values.get(null))[0]);
+
+		// the registry is incomplete once a class that cannot be reset is initialized
+		Class.forName("StaticBlock", true, classLoader);
+		assertFalse(StaticStateRegistry.isComplete());
+	}
+}
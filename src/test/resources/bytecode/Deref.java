@@ -0,0 +1,28 @@
+public class Deref {
+    private String field;
+    private Deref next;
+
+    public int unique(String s) {
+        return s.length();
+    }
+
+    public int sameLine(String a, String b) {
+        return a.length() + b.length();
+    }
+
+    public String implicitThis(Deref d) {
+        return field + d.field;
+    }
+
+    public String chain(Deref d) {
+        return d.next.field;
+    }
+
+    public int inFinally(String s) {
+        try {
+            return 0;
+        } finally {
+            s.length();
+        }
+    }
+}
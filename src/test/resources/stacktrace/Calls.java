@@ -0,0 +1,23 @@
+public class Calls {
+
+    public String first() {
+        return second();
+    }
+
+    public String second() {
+        return third();
+    }
+
+    public String third() {
+        return null;
+    }
+
+    public Runnable callback() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                third().toString();
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class StaticState {
+	private static int count = 10;
+	private static String name;
+	private static int[] values = {1, 2};
+	private static final int MAX = 3;
+}
+
+class FinalState {
+	private static final List<String> NAMES = new ArrayList<String>();
+}
+
+class StaticBlock {
+	private static int count;
+
+	static {
+		count = 5;
+	}
+}
+
+enum Mode {
+	FIRST, SECOND;
+
+	private int count;
+}
+
+enum Constant {
+	FIRST, SECOND;
+
+	private final int count = 1;
+}
+
+interface Names {
+	List<String> NAMES = new ArrayList<String>();
+}